@@ -0,0 +1,94 @@
+package analysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarises a Flight Recorder recording into a contention report for each thing, such as a resource or a car park,
+ * that its events are about.  Subclasses choose which events they read, and how each thing's report is laid out.
+ * @param <R> the contention seen on a single thing.
+ */
+public abstract class RecordingAnalyzer<R>
+{
+    /**
+     * The reports, indexed by the name of the thing each is about.
+     */
+    private Map<String,R> reports = new TreeMap<String,R>();
+
+    /**
+     * Read all the events in a recording, adding each to the reports.
+     * @param recording the recording file.
+     * @throws IOException if the recording cannot be read.
+     */
+    protected void read(Path recording) throws IOException {
+        for (RecordedEvent event: RecordingFile.readAllEvents(recording)) {
+            add(event);
+        }
+    }
+
+    /**
+     * Add a single event to the reports.  Events the analyzer is not interested in should be ignored.
+     * @param event the recorded event.
+     */
+    protected abstract void add(RecordedEvent event);
+
+    /**
+     * Create an empty report, for a thing no event has been about yet.
+     * @return the new report.
+     */
+    protected abstract R newReport();
+
+    /**
+     * Append the lines of a single thing's report, after the line naming it.
+     * @param report the report being constructed.
+     * @param thing the contention seen on the thing.
+     */
+    protected abstract void append(StringBuilder report,R thing);
+
+    /**
+     * Find the report on a thing, creating it if this is the first event about it.
+     * @param name the name of the thing.
+     * @return the report on the thing.
+     */
+    protected R report(String name) {
+        return reports.computeIfAbsent(name, key -> newReport());
+    }
+
+    /**
+     * Format a total duration as an average, in microseconds.
+     * @param total the total duration.
+     * @param count the number of durations in the total.
+     * @return the average, or "-" if there were none.
+     */
+    protected static String average(Duration total,int count) {
+        return count == 0 ? "-" : String.format("%.1fus", total.toNanos() / 1000.0 / count);
+    }
+
+    /**
+     * Format a single duration, in microseconds.
+     * @param duration the duration.
+     * @return the duration in microseconds.
+     */
+    protected static String micros(Duration duration) {
+        return String.format("%.1fus", duration.toNanos() / 1000.0);
+    }
+
+    /**
+     * Construct a report on the contention seen on each thing in the recording.
+     * @return the report, one section per thing, in order of name.
+     */
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String,R> entry: reports.entrySet()) {
+            report.append(entry.getKey()).append('\n');
+            append(report, entry.getValue());
+        }
+        return report.toString();
+    }
+}
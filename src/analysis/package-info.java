@@ -0,0 +1,4 @@
+/**
+ * Summarises Flight Recorder recordings of the resource managers and car parks.
+ */
+package analysis;
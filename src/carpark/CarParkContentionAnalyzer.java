@@ -0,0 +1,95 @@
+package carpark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import analysis.RecordingAnalyzer;
+import jdk.jfr.consumer.RecordedEvent;
+
+/**
+ * Summarises a Flight Recorder recording into a contention report for each car park in it.
+ * <p>
+ * The events are emitted by {@link CarParkControl} while a recording of them is running.  Record a run with, for
+ * example, <tt>java -XX:StartFlightRecording=filename=run.jfr carpark.CarParkNetwork</tt>, and then summarise it
+ * with <tt>java carpark.CarParkContentionAnalyzer run.jfr</tt>.
+ * </p>
+ */
+public class CarParkContentionAnalyzer extends RecordingAnalyzer<CarParkContentionAnalyzer.CarParkReport> {
+
+	/**
+	 * The contention seen on a single car park.
+	 */
+	static class CarParkReport {
+		int blockedOnFull;
+		Duration waitOnFull = Duration.ZERO;
+		int blockedOnEmpty;
+		Duration waitOnEmpty = Duration.ZERO;
+	}
+
+	/**
+	 * Read all the car park events in a recording.
+	 * @param recording the recording file.
+	 * @throws IOException if the recording cannot be read.
+	 */
+	public CarParkContentionAnalyzer(Path recording) throws IOException {
+		read(recording);
+	}
+
+	/**
+	 * Add a single event to the reports.  Events other than car park events are ignored.
+	 * @param event the recorded event.
+	 */
+	@Override
+	protected void add(RecordedEvent event) {
+		switch (event.getEventType().getName()) {
+		case CarParkFullEvent.NAME:
+			CarParkReport full = carPark(event);
+			full.blockedOnFull++;
+			full.waitOnFull = full.waitOnFull.plus(event.getDuration());
+			break;
+		case CarParkEmptyEvent.NAME:
+			CarParkReport empty = carPark(event);
+			empty.blockedOnEmpty++;
+			empty.waitOnEmpty = empty.waitOnEmpty.plus(event.getDuration());
+			break;
+		default:
+		}
+	}
+
+	private CarParkReport carPark(RecordedEvent event) {
+		return report(event.getString("carPark"));
+	}
+
+	@Override
+	protected CarParkReport newReport() {
+		return new CarParkReport();
+	}
+
+	/**
+	 * Append the report on the contention seen on a single car park.
+	 * @param report the report being constructed.
+	 * @param carPark the contention seen on the car park.
+	 */
+	@Override
+	protected void append(StringBuilder report, CarParkReport carPark) {
+		report.append("  blocked on full: ").append(carPark.blockedOnFull)
+		      .append(", average wait ").append(average(carPark.waitOnFull, carPark.blockedOnFull)).append('\n');
+		report.append("  blocked on empty: ").append(carPark.blockedOnEmpty)
+		      .append(", average wait ").append(average(carPark.waitOnEmpty, carPark.blockedOnEmpty)).append('\n');
+	}
+
+	/**
+	 * Print a contention report for a recording.
+	 * @param args the recording file.
+	 * @throws IOException if the recording cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.out.println("Usage: java carpark.CarParkContentionAnalyzer <recording.jfr>");
+			return;
+		}
+		System.out.print(new CarParkContentionAnalyzer(Paths.get(args[0])));
+	}
+}
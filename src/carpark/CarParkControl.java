@@ -1,5 +1,8 @@
 package carpark;
 
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
 /**
  * Controls a car park, and two streams of cars, one modelling cars arriving, and the other cars leaving.
  *
@@ -9,32 +12,125 @@ package carpark;
 public class CarParkControl {
 	/**
 	 * The number of spaces currently available.
+	 * Only changed while holding the monitor, but volatile so that it can be sampled without it.
 	 */
-	protected int spaces;
+	protected volatile int spaces;
 	/**
 	 * The size of the car park (the number of spaces if the car park is empty).
 	 */
 	protected int capacity;
+	/**
+	 * The name of the car park, used in reports and Flight Recorder events.
+	 */
+	protected String name;
+
+	/**
+	 * The car park event types, which are only looked up, registering the events with Flight Recorder, once it has
+	 * been initialised.
+	 */
+	private static final class EventTypes {
+		static final EventType FULL = EventType.getEventType(CarParkFullEvent.class);
+		static final EventType EMPTY = EventType.getEventType(CarParkEmptyEvent.class);
+	}
 
 	/**
 	 * @param n the size of the car park
 	 */
 	public CarParkControl(int n) {
+		this("Carpark", n);
+	}
+
+	/**
+	 * @param name the name of the car park
+	 * @param n the size of the car park
+	 */
+	public CarParkControl(String name, int n) {
+		this.name = name;
 		capacity = spaces = n;
 		System.out.println(this);
 	}
 
+	/**
+	 * Get the name of the car park.
+	 * @return the name of the car park.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the size of the car park.
+	 * @return the number of spaces in the car park.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Get the number of spaces currently available, without waiting for the car park's monitor.
+	 * The value may be out of date by the time it is used.
+	 * @return the number of free spaces.
+	 */
+	public int getSpaces() {
+		return spaces;
+	}
+
+	/**
+	 * Allow a car to enter the car park if there is a space, without waiting.
+	 * @return true iff the car entered.
+	 */
+	public synchronized boolean tryEnter() {
+		if (spaces == 0) {
+			return false;
+		}
+		--spaces;
+		System.out.println(this);
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * Allow a car to leave the car park if there is one, without waiting.
+	 * @return true iff a car left.
+	 */
+	public synchronized boolean tryLeave() {
+		if (spaces == capacity) {
+			return false;
+		}
+		++spaces;
+		System.out.println(this);
+		notifyAll();
+		return true;
+	}
+
 	/**
 	 * Allow a car to enter the car park.
 	 * @throws InterruptedException if wait() does
 	 */
 	public synchronized void enter() throws InterruptedException {
 		if (spaces == 0) {
-			wait();
+			// one event per blocked car, however many times it is woken before it gets in
+			// creating the first event loads Flight Recorder, so only do so once a recording has started it, and
+			// Flight Recorder stays initialised after the recording stops, so only while one records the event
+			CarParkFullEvent event = FlightRecorder.isInitialized() && EventTypes.FULL.isEnabled() ? new CarParkFullEvent() : null;
+			if (event != null) {
+				event.begin();
+			}
+			while (spaces == 0) {
+				wait();
+			}
+			if (event != null) {
+				event.end();
+				if (event.shouldCommit()) {
+					event.carPark = name;
+					event.capacity = capacity;
+					event.commit();
+				}
+			}
 		}
 		--spaces;
 		System.out.println(this);
-		notify();
+		notifyAll();
 	}
 
     /**
@@ -43,11 +139,28 @@ public class CarParkControl {
      */
     public synchronized void leave() throws InterruptedException {
 		if (spaces == capacity) {
-			wait();
+			// one event per blocked car, however many times it is woken before it gets in
+			// creating the first event loads Flight Recorder, so only do so once a recording has started it, and
+			// Flight Recorder stays initialised after the recording stops, so only while one records the event
+			CarParkEmptyEvent event = FlightRecorder.isInitialized() && EventTypes.EMPTY.isEnabled() ? new CarParkEmptyEvent() : null;
+			if (event != null) {
+				event.begin();
+			}
+			while (spaces == capacity) {
+				wait();
+			}
+			if (event != null) {
+				event.end();
+				if (event.shouldCommit()) {
+					event.carPark = name;
+					event.capacity = capacity;
+					event.commit();
+				}
+			}
 		}
 		++spaces;
 		System.out.println(this);
-		notify();
+		notifyAll();
 	}
 
     /**
@@ -56,7 +169,7 @@ public class CarParkControl {
      */
 	public String toString() {
 		int cars = capacity - spaces;
-		return "Carpark: " 
+		return name + ": " 
 			       + cars + (cars == 1 ? " car," : " cars,")
 			       + spaces + (spaces == 1 ? " space." : " spaces.");
 	}
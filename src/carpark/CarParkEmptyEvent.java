@@ -0,0 +1,36 @@
+package carpark;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event recording a (non-existent) car blocked from leaving an empty car park.
+ * The event's duration is the time the departure waited for a car.
+ */
+@Name(CarParkEmptyEvent.NAME)
+@Label("Car Park Empty")
+@Description("A departure waiting for a car to leave an empty car park")
+@Category({"Car Park"})
+@StackTrace(false)
+public class CarParkEmptyEvent extends jdk.jfr.Event {
+
+	/**
+	 * The name under which the event is recorded.
+	 */
+	public static final String NAME = "carpark.CarParkEmpty";
+
+	/**
+	 * The name of the car park.
+	 */
+	@Label("Car Park")
+	String carPark;
+
+	/**
+	 * The size of the car park.
+	 */
+	@Label("Capacity")
+	int capacity;
+}
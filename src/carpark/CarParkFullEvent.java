@@ -0,0 +1,36 @@
+package carpark;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event recording a car blocked from entering a full car park.
+ * The event's duration is the time the car waited for a space.
+ */
+@Name(CarParkFullEvent.NAME)
+@Label("Car Park Full")
+@Description("A car waiting to enter a full car park")
+@Category({"Car Park"})
+@StackTrace(false)
+public class CarParkFullEvent extends jdk.jfr.Event {
+
+	/**
+	 * The name under which the event is recorded.
+	 */
+	public static final String NAME = "carpark.CarParkFull";
+
+	/**
+	 * The name of the car park.
+	 */
+	@Label("Car Park")
+	String carPark;
+
+	/**
+	 * The size of the car park.
+	 */
+	@Label("Capacity")
+	int capacity;
+}
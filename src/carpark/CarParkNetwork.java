@@ -0,0 +1,284 @@
+package carpark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fronts a number of car parks, so that a car only has to wait when every car park is full.
+ * <p>
+ * Each arriving car samples two car parks at random and heads for the less occupied of the two (the "power of two
+ * choices").  If that car park has filled up in the meantime the car is rerouted to the other, and then to each of
+ * the remaining car parks in turn, rather than waiting.  Departures are routed in the same way, to the more occupied
+ * of two car parks.  Occupancy is sampled without taking any car park's monitor, and only the car park a car actually
+ * enters or leaves is locked, so there is no lock common to the whole network while any car park has room.
+ * </p>
+ * <p>
+ * When every car park is full an arriving car waits on the network as a whole, rather than on any one car park, and
+ * retries every car park each time a car leaves any of them.  Departures from an empty network wait in the same way.
+ * </p>
+ */
+public class CarParkNetwork {
+
+	/**
+	 * The car parks in the network.
+	 */
+	protected CarParkControl[] controls;
+
+	/**
+	 * The number of cars that have entered a car park in the network.
+	 */
+	private LongAdder entered = new LongAdder();
+	/**
+	 * The number of cars that found their chosen car park full, and were sent to another one.
+	 */
+	private LongAdder rerouted = new LongAdder();
+	/**
+	 * The number of cars that had to wait because every car park was full.
+	 */
+	private LongAdder blocked = new LongAdder();
+	/**
+	 * The number of cars that have left a car park in the network.
+	 */
+	private LongAdder left = new LongAdder();
+
+	/**
+	 * The monitor on which cars wait when no car park in the network has room (or, for departures, a car).
+	 */
+	private final Object changed = new Object();
+	/**
+	 * The number of cars waiting on {@link #changed}.
+	 * Only changed while holding its monitor, but volatile so that a car that has moved can check it without it.
+	 */
+	private volatile int waiting;
+
+	/**
+	 * @param controls the controllers of the car parks in the network.
+	 */
+	public CarParkNetwork(CarParkControl... controls) {
+		if (controls.length == 0) {
+			throw new IllegalArgumentException("A car park network needs at least one car park");
+		}
+		this.controls = controls.clone();
+	}
+
+	/**
+	 * Create a network of equally sized car parks, named "Carpark 1", "Carpark 2", and so on.
+	 * @param count the number of car parks.
+	 * @param n the size of each car park.
+	 */
+	public CarParkNetwork(int count, int n) {
+		this(create(count, n));
+	}
+
+	private static CarParkControl[] create(int count, int n) {
+		CarParkControl[] controls = new CarParkControl[count];
+		for (int index = 0; index < count; index++) {
+			controls[index] = new CarParkControl("Carpark " + (index + 1), n);
+		}
+		return controls;
+	}
+
+	/**
+	 * Compare how full two car parks are.
+	 * @return a negative number if a is less full than b, zero if they are equally full, and positive otherwise.
+	 */
+	private static long compareOccupancy(CarParkControl a, CarParkControl b) {
+		long carsA = a.getCapacity() - a.getSpaces();
+		long carsB = b.getCapacity() - b.getSpaces();
+		return carsA * b.getCapacity() - carsB * a.getCapacity();
+	}
+
+	/**
+	 * Allow a car to enter the least occupied of two randomly chosen car parks, rerouting it to any other car park
+	 * with space if that one is full.  The car only waits if every car park in the network is full.
+	 * @return the car park the car entered.
+	 * @throws InterruptedException if the car has to wait, and wait() throws it.
+	 */
+	public CarParkControl enter() throws InterruptedException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(controls.length);
+		int second = controls.length == 1 ? first : (first + 1 + random.nextInt(controls.length - 1)) % controls.length;
+		if (compareOccupancy(controls[second], controls[first]) < 0) {
+			int swap = first;
+			first = second;
+			second = swap;
+		}
+		CarParkControl chosen = controls[first];
+		if (!chosen.tryEnter()) {
+			rerouted.increment();
+			chosen = reroute(first, second, true);
+			if (chosen == null) {
+				blocked.increment();
+				chosen = await(first, second, true);
+			}
+		}
+		entered.increment();
+		moved();
+		return chosen;
+	}
+
+	/**
+	 * Allow a car to leave the most occupied of two randomly chosen car parks, or any other car park with a car in
+	 * it if that one is empty.  The departure only waits if every car park in the network is empty.
+	 * @return the car park the car left.
+	 * @throws InterruptedException if the departure has to wait, and wait() throws it.
+	 */
+	public CarParkControl leave() throws InterruptedException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(controls.length);
+		int second = controls.length == 1 ? first : (first + 1 + random.nextInt(controls.length - 1)) % controls.length;
+		if (compareOccupancy(controls[second], controls[first]) > 0) {
+			int swap = first;
+			first = second;
+			second = swap;
+		}
+		CarParkControl chosen = controls[first];
+		if (!chosen.tryLeave()) {
+			chosen = reroute(first, second, false);
+			if (chosen == null) {
+				chosen = await(first, second, false);
+			}
+		}
+		left.increment();
+		moved();
+		return chosen;
+	}
+
+	/**
+	 * Try the second choice, and then every other car park in turn, starting after the first choice.
+	 * @param first the index of the car park that has already been tried.
+	 * @param second the index of the other sampled car park.
+	 * @param entering true if a car is entering, false if one is leaving.
+	 * @return the car park entered or left, or null if none had room (or, for departures, a car).
+	 */
+	private CarParkControl reroute(int first, int second, boolean entering) {
+		if (tryMove(controls[second], entering)) {
+			return controls[second];
+		}
+		for (int offset = 1; offset < controls.length; offset++) {
+			int index = (first + offset) % controls.length;
+			if (index != second && tryMove(controls[index], entering)) {
+				return controls[index];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Wait until some car park in the network has room (or, for departures, a car), retrying every car park each time
+	 * a car moves.  A car announces that it is waiting before its first retry, so a car that moves after that retry
+	 * always sees it, and wakes it.
+	 * @param first the index of the car park to try first.
+	 * @param second the index of the other sampled car park.
+	 * @param entering true if a car is entering, false if one is leaving.
+	 * @return the car park entered or left.
+	 * @throws InterruptedException if wait() does.
+	 */
+	private CarParkControl await(int first, int second, boolean entering) throws InterruptedException {
+		synchronized (changed) {
+			waiting++;
+			try {
+				while (true) {
+					if (tryMove(controls[first], entering)) {
+						return controls[first];
+					}
+					CarParkControl chosen = reroute(first, second, entering);
+					if (chosen != null) {
+						return chosen;
+					}
+					changed.wait();
+				}
+			} finally {
+				waiting--;
+			}
+		}
+	}
+
+	/**
+	 * Wake any cars waiting on the network, now that a car has entered or left one of its car parks.
+	 */
+	private void moved() {
+		if (waiting > 0) {
+			synchronized (changed) {
+				changed.notifyAll();
+			}
+		}
+	}
+
+	private static boolean tryMove(CarParkControl control, boolean entering) {
+		return entering ? control.tryEnter() : control.tryLeave();
+	}
+
+	/**
+	 * Get the total size of the car parks in the network.
+	 * @return the total number of spaces.
+	 */
+	public int getCapacity() {
+		int capacity = 0;
+		for (CarParkControl control: controls) {
+			capacity += control.getCapacity();
+		}
+		return capacity;
+	}
+
+	/**
+	 * Get the number of spaces currently available across the network.  Each car park is sampled without taking its
+	 * monitor, so the total may be slightly out of date.
+	 * @return the total number of free spaces.
+	 */
+	public int getSpaces() {
+		int spaces = 0;
+		for (CarParkControl control: controls) {
+			spaces += control.getSpaces();
+		}
+		return spaces;
+	}
+
+	/**
+	 * Report the current state of the network, and how arrivals have been routed.
+	 * @return a String report on the occupancy of the network, and on the arrivals and departures so far.
+	 */
+	public String toString() {
+		int capacity = getCapacity();
+		int cars = capacity - getSpaces();
+		return "Carpark network of " + controls.length + ": "
+			       + cars + (cars == 1 ? " car," : " cars,")
+			       + (capacity - cars) + (capacity - cars == 1 ? " space." : " spaces.")
+			       + " Entered " + entered.sum() + ", rerouted " + rerouted.sum()
+			       + ", blocked " + blocked.sum() + ", left " + left.sum() + ".";
+	}
+
+	/**
+	 * Demonstrate the code for one second, using four car parks of size 25, with two streams of cars entering and
+	 * two leaving.
+	 * @param args not used.
+	 * @throws InterruptedException if interrupted while waiting for the demonstration to finish.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		CarParkNetwork network = new CarParkNetwork(4, 25);
+		Thread[] streams = new Thread[4];
+		for (int index = 0; index < streams.length; index++) {
+			boolean arriving = index % 2 == 0;
+			streams[index] = new Thread(() -> {
+				try {
+					while (true) {
+						if (arriving) {
+							network.enter();
+						} else {
+							network.leave();
+						}
+					}
+				} catch (InterruptedException e) {}
+			});
+			streams[index].start();
+		}
+		Thread.sleep(1000);
+		for (Thread stream: streams) {
+			stream.interrupt();
+		}
+		for (Thread stream: streams) {
+			stream.join();
+		}
+		System.out.println(network);
+	}
+}
@@ -125,6 +125,18 @@ public abstract class BasicResourceManager implements ResourceManager
         return random.nextInt(MAX_PRIORITY+1);
     }
 
+    /**
+     * Check that a requested priority is in the permitted range, before it is used to index any per-priority state.
+     * @param priority the requested priority.
+     * @throws ResourceError if the priority is not in the interval [0,MAX_PRIORITY].
+     */
+    protected void checkPriority(int priority) throws ResourceError {
+        if (priority < 0 || priority > MAX_PRIORITY) {
+            throw new ResourceError(resource + " cannot be requested at priority " + priority
+                                    + " - priorities range from 0 to " + MAX_PRIORITY);
+        }
+    }
+
     /**
      * Check whether the resource is exhausted.
      * @return true iff the resource is exhausted.
@@ -137,10 +149,13 @@ public abstract class BasicResourceManager implements ResourceManager
      * Allow the resource to be used for a specified length of time.
      * Calls of this method <i>must</i> be protected by (properly implemented) calls of
      * requestResource() and releaseResource().
+     * A use that is cut short because the resource is revoked does not count towards exhausting it.
      * @param timeRequired the time, in milliseconds, for which the requesting user requires use of the resource.
+     * @return the time, in milliseconds, for which the user still requires the resource if it was revoked, or 0.
      * @throws ResourceError if more than one user is using the resource, or if the resource is exhausted.
      */
-    public void useResource(int timeRequired) throws ResourceError {
+    public int useResource(int timeRequired) throws ResourceError {
+        int remaining = 0;
         numberOfUsers++;
         if (numberOfUsers > 1) {
             throw new ResourceError(((ResourceUser) Thread.currentThread()) + " cannot use " + resource + " because it is already in use by another user");
@@ -148,10 +163,21 @@ public abstract class BasicResourceManager implements ResourceManager
         if (resourceIsExhausted()) {
             System.out.println(((ResourceUser) Thread.currentThread()) + " cannot use " + resource + " as the resource is exhausted"); 
         } else {
-        	resource.use(timeRequired);
-        	usesLeft--;
+        	remaining = resource.use(timeRequired);
+        	if (remaining == 0) {
+        	    usesLeft--;
+        	}
         }
         System.out.println(resource + " has " + usesLeft + " uses left");
         numberOfUsers--;
+        return remaining;
+    }
+
+    /**
+     * Get the resource managed by this resource manager, so that subclasses can revoke it.
+     * @return the resource managed by this resource manager.
+     */
+    protected Resource getResource() {
+        return resource;
     }
 }
\ No newline at end of file
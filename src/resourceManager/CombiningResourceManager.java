@@ -0,0 +1,269 @@
+package resourceManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A flat combining resource manager, for heavily contended resources.
+ * <p>
+ * In a {@link LockResourceManager} every request and release takes the manager's lock, so under heavy contention the
+ * lock, and the manager's state, bounce between processors.  Here each resource user instead publishes its request
+ * or release in a slot of its own, and whichever user manages to become the combiner applies all the published
+ * operations in a single batch, before handing the role on.  Only the combiner ever touches the manager's state, so
+ * it stays in the combiner's cache, and the other users only spin on their own slots.
+ * </p>
+ * <p>
+ * As in a LockResourceManager, a releasing user hands the resource directly to a waiting user of the highest
+ * priority, which then spins briefly before parking until it is handed over.
+ * </p>
+ * <p>
+ * A slot is added to the publication list the first time a thread uses the manager, and is never removed, so this
+ * manager suits a fixed set of long running resource users.
+ * </p>
+ */
+public class CombiningResourceManager extends BasicResourceManager
+{
+    private static final int NONE = 0;
+    private static final int REQUEST = 1;
+    private static final int RELEASE = 2;
+    private static final int CANCEL = 3;
+    /**
+     * The number of times a waiting user spins, checking its slot, before it yields or parks.  Spinning is pointless
+     * on a single processor, as the user being waited for cannot run until the spinning user gives up the processor.
+     */
+    private static final int SPIN_LIMIT = Runtime.getRuntime().availableProcessors() > 1 ? 1000 : 0;
+
+    /**
+     * A resource user's slot in the publication list.
+     */
+    private static class Slot {
+        final Thread thread = Thread.currentThread();
+        /**
+         * The operation published by the resource user, set back to NONE by the combiner once it has been applied.
+         * The other fields are written before op is published, and read after it is cleared.
+         */
+        volatile int op = NONE;
+        int priority;
+        /**
+         * The priority of the user woken by a release.
+         */
+        int result;
+        /**
+         * Whether a cancelled request was withdrawn before the resource was handed over.
+         */
+        boolean withdrawn;
+        /**
+         * When the resource was granted to this slot's user, from System.nanoTime().
+         */
+        long grantedAt;
+        volatile boolean granted;
+        volatile boolean parked;
+        /**
+         * The exception thrown while applying the operation, if it failed, for the resource user to rethrow.
+         */
+        RuntimeException failure;
+        Slot next;
+    }
+
+    /**
+     * The head of the publication list, to which each thread's slot is added the first time it uses the manager.
+     */
+    private AtomicReference<Slot> slots = new AtomicReference<Slot>();
+    private ThreadLocal<Slot> slot = ThreadLocal.withInitial(this::register);
+    /**
+     * Held by the combiner.
+     */
+    private AtomicBoolean combining = new AtomicBoolean();
+
+    // The manager's state, only accessed by the combiner.
+    private Deque<Slot>[] queues;
+    private boolean resourceInUse;
+
+    /**
+     * Create a queue for each priority.
+     * @param resource the resource managed by this manager
+     * @param maxUses the maximum number of uses permitted for this manager's resource.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CombiningResourceManager(Resource resource, int maxUses) {
+        super(resource, maxUses);
+        resourceInUse = false;
+        queues = new Deque[NO_OF_PRIORITIES];
+        for (int index = 0; index < NO_OF_PRIORITIES; index++) {
+            queues[index] = new ArrayDeque<Slot>();
+        }
+    }
+
+    /**
+     * Add a slot for the current thread to the publication list.
+     */
+    private Slot register() {
+        Slot mine = new Slot();
+        do {
+            mine.next = slots.get();
+        } while (!slots.compareAndSet(mine.next, mine));
+        return mine;
+    }
+
+    /**
+     * Publish a request, and wait until the combiner has either granted it or queued it.  If it was queued, wait
+     * until a releasing user hands the resource over.
+     */
+    @Override
+    public void requestResource(int priority) throws ResourceError {
+        // a bad priority must never reach the combiner, which would fail on behalf of whichever user is combining
+        checkPriority(priority);
+        ResourceGrantEvent grantEvent = ResourceEvents.beginGrant();
+        ResourceTimeoutEvent timeoutEvent = ResourceEvents.beginTimeout();
+        Slot mine = slot.get();
+        mine.priority = priority;
+        mine.granted = false;
+        mine.parked = false;
+        apply(mine, REQUEST);
+        ResourceEvents.request(getResourceName(), priority, !mine.granted);
+        if (!awaitGrant(mine)) {
+            apply(mine, CANCEL);
+            if (mine.withdrawn) {
+                Thread.interrupted();
+                ResourceEvents.endTimeout(timeoutEvent, getResourceName(), priority);
+                throw new ResourceError(getResourceName() + " was interrupted while waiting in priority " + priority + " queue");
+            }
+        }
+        ResourceEvents.endGrant(grantEvent, getResourceName(), priority);
+    }
+
+    /**
+     * Publish a release, and wait until the combiner has handed the resource over, or marked it as free.
+     */
+    @Override
+    public int releaseResource() throws ResourceError {
+        Slot mine = slot.get();
+        long releasedAt = System.nanoTime();
+        apply(mine, RELEASE);
+        ResourceEvents.release(getResourceName(), releasedAt - mine.grantedAt, mine.result);
+        return mine.result;
+    }
+
+    /**
+     * Publish an operation in a slot, and wait until it has been applied, becoming the combiner if no one else is.
+     * @param mine the current thread's slot.
+     * @param op the operation to publish.
+     * @throws RuntimeException if applying the operation failed.
+     */
+    private void apply(Slot mine, int op) {
+        mine.op = op;
+        int spins = 0;
+        while (mine.op != NONE) {
+            if (!combining.get() && combining.compareAndSet(false, true)) {
+                try {
+                    combine();
+                } finally {
+                    combining.set(false);
+                }
+            } else if (++spins < SPIN_LIMIT) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        RuntimeException failure = mine.failure;
+        if (failure != null) {
+            mine.failure = null;
+            throw failure;
+        }
+    }
+
+    /**
+     * Apply every operation published in the publication list.  Only called by the combiner.  An operation that fails
+     * is still marked as applied, with the failure left in its slot for its own user to rethrow, so that it neither
+     * fails the combiner nor stays published for every later combiner to fail on.
+     */
+    private void combine() {
+        for (Slot current = slots.get(); current != null; current = current.next) {
+            int op = current.op;
+            if (op == NONE) {
+                continue;
+            }
+            try {
+                switch (op) {
+                case REQUEST:
+                    if (!resourceInUse) {
+                        resourceInUse = true;
+                        current.grantedAt = System.nanoTime();
+                        current.granted = true;
+                    } else {
+                        queues[current.priority].addLast(current);
+                        increaseNumberWaiting(current.priority);
+                    }
+                    break;
+                case RELEASE:
+                    current.result = handOver();
+                    break;
+                case CANCEL:
+                    current.withdrawn = !current.granted;
+                    if (current.withdrawn) {
+                        queues[current.priority].remove(current);
+                        decreaseNumberWaiting(current.priority);
+                    }
+                    break;
+                default:
+                }
+            } catch (RuntimeException failure) {
+                current.failure = failure;
+            } finally {
+                current.op = NONE;
+            }
+        }
+    }
+
+    /**
+     * Hand the resource over to the longest waiting user of the highest priority waiting, or mark it as free if there
+     * are none.  Only called by the combiner.
+     * @return the priority of the user the resource was handed to, or NONE_WAITING.
+     */
+    private int handOver() {
+        int highestPriorityWaiting = NONE_WAITING;
+        for (int index = 0; index < NO_OF_PRIORITIES; index++) {
+            if (getNumberWaiting(index) > 0) {
+                highestPriorityWaiting = index;
+            }
+        }
+        if (highestPriorityWaiting != NONE_WAITING) {
+            decreaseNumberWaiting(highestPriorityWaiting);
+            Slot next = queues[highestPriorityWaiting].pollFirst();
+            next.grantedAt = System.nanoTime();
+            next.granted = true;
+            if (next.parked) {
+                LockSupport.unpark(next.thread);
+            }
+        } else {
+            resourceInUse = false;
+        }
+        return highestPriorityWaiting;
+    }
+
+    /**
+     * Spin for a while, and then park, until the resource is handed over.
+     * @param mine the current thread's slot.
+     * @return true if the resource was handed over, false if the waiting thread was interrupted first.
+     */
+    private boolean awaitGrant(Slot mine) {
+        for (int spins = 0; spins < SPIN_LIMIT; spins++) {
+            if (mine.granted) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        mine.parked = true;
+        while (!mine.granted) {
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            LockSupport.park(this);
+        }
+        return true;
+    }
+}
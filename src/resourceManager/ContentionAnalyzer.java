@@ -0,0 +1,138 @@
+package resourceManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import analysis.RecordingAnalyzer;
+import jdk.jfr.consumer.RecordedEvent;
+
+/**
+ * Summarises a Flight Recorder recording into a contention report for each resource in it.
+ * <p>
+ * The events are emitted by {@link LockResourceManager} and {@link CombiningResourceManager} while a recording of
+ * them is running, and cost a check or two otherwise.  The car park events are summarised by
+ * <tt>carpark.CarParkContentionAnalyzer</tt>.  Record a run with, for example,
+ * <tt>java -XX:StartFlightRecording=filename=run.jfr resourceManager.ResourceSystemMain</tt>, and then
+ * summarise it with <tt>java resourceManager.ContentionAnalyzer run.jfr</tt>.
+ * </p>
+ */
+public class ContentionAnalyzer extends RecordingAnalyzer<ContentionAnalyzer.ResourceReport>
+{
+    /**
+     * The contention seen on a single resource.
+     */
+    static class ResourceReport {
+        int requests;
+        int contendedRequests;
+        int grants;
+        Duration totalWait = Duration.ZERO;
+        Duration maxWait = Duration.ZERO;
+        int[] grantsAtPriority = new int[BasicResourceManager.NO_OF_PRIORITIES];
+        Duration[] waitAtPriority = new Duration[BasicResourceManager.NO_OF_PRIORITIES];
+        int timeouts;
+        int releases;
+        Duration totalHold = Duration.ZERO;
+
+        ResourceReport() {
+            for (int priority = 0; priority < BasicResourceManager.NO_OF_PRIORITIES; priority++) {
+                waitAtPriority[priority] = Duration.ZERO;
+            }
+        }
+    }
+
+    /**
+     * Read all the resource manager events in a recording.
+     * @param recording the recording file.
+     * @throws IOException if the recording cannot be read.
+     */
+    public ContentionAnalyzer(Path recording) throws IOException {
+        read(recording);
+    }
+
+    /**
+     * Add a single event to the reports.  Events other than resource manager events are ignored.
+     * @param event the recorded event.
+     */
+    @Override
+    protected void add(RecordedEvent event) {
+        switch (event.getEventType().getName()) {
+        case ResourceRequestEvent.NAME:
+            ResourceReport requested = resource(event);
+            requested.requests++;
+            if (event.getBoolean("contended")) {
+                requested.contendedRequests++;
+            }
+            break;
+        case ResourceGrantEvent.NAME:
+            ResourceReport granted = resource(event);
+            int priority = event.getInt("priority");
+            Duration wait = event.getDuration();
+            granted.grants++;
+            granted.totalWait = granted.totalWait.plus(wait);
+            if (wait.compareTo(granted.maxWait) > 0) {
+                granted.maxWait = wait;
+            }
+            granted.grantsAtPriority[priority]++;
+            granted.waitAtPriority[priority] = granted.waitAtPriority[priority].plus(wait);
+            break;
+        case ResourceTimeoutEvent.NAME:
+            resource(event).timeouts++;
+            break;
+        case ResourceReleaseEvent.NAME:
+            ResourceReport released = resource(event);
+            released.releases++;
+            released.totalHold = released.totalHold.plus(event.getDuration("holdTime"));
+            break;
+        default:
+        }
+    }
+
+    private ResourceReport resource(RecordedEvent event) {
+        return report(event.getString("resource"));
+    }
+
+    @Override
+    protected ResourceReport newReport() {
+        return new ResourceReport();
+    }
+
+    /**
+     * Append the report on the contention seen on a single resource.
+     * @param report the report being constructed.
+     * @param resource the contention seen on the resource.
+     */
+    @Override
+    protected void append(StringBuilder report,ResourceReport resource) {
+        report.append("  requests: ").append(resource.requests)
+              .append(" (").append(resource.contendedRequests).append(" had to wait)\n");
+        report.append("  grants: ").append(resource.grants)
+              .append(", average wait ").append(average(resource.totalWait, resource.grants))
+              .append(", longest wait ").append(micros(resource.maxWait)).append('\n');
+        for (int priority = BasicResourceManager.NO_OF_PRIORITIES - 1; priority >= 0; priority--) {
+            if (resource.grantsAtPriority[priority] > 0) {
+                report.append("    priority ").append(priority).append(": ")
+                      .append(resource.grantsAtPriority[priority]).append(" grants, average wait ")
+                      .append(average(resource.waitAtPriority[priority], resource.grantsAtPriority[priority]))
+                      .append('\n');
+            }
+        }
+        report.append("  timeouts: ").append(resource.timeouts).append('\n');
+        report.append("  releases: ").append(resource.releases)
+              .append(", average hold ").append(average(resource.totalHold, resource.releases)).append('\n');
+    }
+
+    /**
+     * Print a contention report for a recording.
+     * @param args the recording file.
+     * @throws IOException if the recording cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: java resourceManager.ContentionAnalyzer <recording.jfr>");
+            return;
+        }
+        System.out.print(new ContentionAnalyzer(Paths.get(args[0])));
+    }
+}
@@ -1,71 +1,512 @@
 package resourceManager;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class LockResourceManager extends BasicResourceManager {
+    /**
+     * The number of times a {@link WaitStrategy#SPIN_YIELD_PARK} waiter spins before it starts yielding.
+     */
+    private static final int SPIN_LIMIT = 1000;
+    /**
+     * The number of times a {@link WaitStrategy#SPIN_YIELD_PARK} or {@link WaitStrategy#ADAPTIVE} waiter yields
+     * before it parks.
+     */
+    private static final int YIELD_LIMIT = 10;
+    /**
+     * The longest an {@link WaitStrategy#ADAPTIVE} waiter will spin for.  If the resource is usually held for longer
+     * than this the waiter parks straight away.
+     */
+    private static final long MAX_ADAPTIVE_SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    /**
+     * The weight, as a right shift, given to each new hold time in the running average - 3 gives a weight of 1/8.
+     */
+    private static final int HOLD_AVERAGE_SHIFT = 3;
+    /**
+     * The preemption priority of a manager that never preempts, and the priority of a holder who cannot be preempted.
+     */
+    public static final int NO_PREEMPTION = NO_OF_PRIORITIES;
+
     private Lock lock = new ReentrantLock();
-    private Object[] queues;
-    private boolean busy;
+    private Deque<Waiter>[] queues;
     private boolean resourceInUse;
+    private WaitStrategy waitStrategy;
+    /**
+     * Requests at this priority or above revoke the resource from a holder of lower priority.
+     */
+    private int preemptionPriority;
+    /**
+     * The priority at which the current holder requested the resource, or NO_PREEMPTION for a reservation holder.
+     */
+    private int holderPriority;
+    /**
+     * When the resource was last granted, from System.nanoTime().
+     */
+    private long grantedAt;
+    /**
+     * The running average of the time, in nanoseconds, for which the resource has been held.
+     * Written under the lock, but read by {@link WaitStrategy#ADAPTIVE} waiters without it.
+     */
+    private volatile long averageHoldNanos;
+    /**
+     * The reservations of the resource.
+     */
+    private ReservationCalendar calendar = new ReservationCalendar();
+    /**
+     * The reservation whose holder currently has the resource, if any.
+     */
+    private Reservation heldReservation;
+    /**
+     * The reservation that has been claimed, but whose holder is waiting for an overrunning process to release the
+     * resource, if any, and the waiting holder.
+     */
+    private Reservation pendingReservation;
+    private Waiter reservationWaiter;
+    /**
+     * Dispatches the resource when a reservation ends, if processes are waiting for it.  Created when first needed.
+     */
+    private Timer timer;
+    /**
+     * The time, from System.nanoTime(), for which a dispatch was last scheduled.
+     */
+    private long dispatchAt;
 
     /**
-     * The LockResourceManager creates an object with a size of the number of priorities, and initilises busy as false.
+     * A resource user waiting in one of the priority queues.  The releasing user hands the resource over directly
+     * by setting granted, so the resource never appears free to a newly arriving user while someone is waiting.
+     */
+    private static class Waiter {
+        final Thread thread = Thread.currentThread();
+        final int priority;
+        /**
+         * How long, in nanoseconds, the waiter expects to hold the resource for.
+         */
+        final long holdEstimate;
+        volatile boolean granted;
+        volatile boolean parked;
+
+        Waiter(int priority, long holdEstimate) {
+            this.priority = priority;
+            this.holdEstimate = holdEstimate;
+        }
+    }
+
+    /**
+     * The LockResourceManager creates a queue for each priority, and waits for the resource by parking.
      */
     public LockResourceManager(Resource resource, int maxUses) {
+        this(resource, maxUses, WaitStrategy.PARK);
+    }
+
+    /**
+     * The LockResourceManager creates a queue for each priority, and never preempts the holder of the resource.
+     * @param waitStrategy how resource users wait for the resource while it is in use.
+     */
+    public LockResourceManager(Resource resource, int maxUses, WaitStrategy waitStrategy) {
+        this(resource, maxUses, waitStrategy, NO_PREEMPTION);
+    }
+
+    /**
+     * The LockResourceManager creates a queue for each priority.
+     * @param waitStrategy how resource users wait for the resource while it is in use.
+     * @param preemptionPriority requests at this priority or above are urgent. An urgent request that would finish
+     * before the next reservation revokes the resource from a holder that requested it at a lower priority, which
+     * yields it at the next safe point in {@link Resource#use(int)}. The urgent request still waits in the queue for
+     * its priority, so a waiting reservation holder, or a waiter of higher priority, or a waiter that fits before the
+     * next reservation when the urgent request does not, may be handed the resource first.
+     * Reservation holders are never preempted. Use NO_PREEMPTION for a manager that never preempts.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LockResourceManager(Resource resource, int maxUses, WaitStrategy waitStrategy, int preemptionPriority) {
         super(resource, maxUses);
-        busy = false;
-        queues = new Object[NO_OF_PRIORITIES];
+        // on a single processor the holder cannot run while a waiter spins, so spinning only delays the hand over
+        this.waitStrategy = Runtime.getRuntime().availableProcessors() > 1 ? waitStrategy : WaitStrategy.PARK;
+        this.preemptionPriority = preemptionPriority;
+        resourceInUse = false;
+        queues = new Deque[NO_OF_PRIORITIES];
         for (int index = 0; index < NO_OF_PRIORITIES; index++) {
-            queues[index] = new Object();
+            queues[index] = new ArrayDeque<Waiter>();
         }
     }
 
     /**
-     * requestResource is used when a process wants access to the object, it locks the object and increaseNumberWaiting by the priority, it then does a try statement to access the resource.
-     * Process can be interrupted by process with higher priority value.
+     * Get the strategy used by resource users waiting for this manager's resource.
+     * @return the wait strategy - always {@link WaitStrategy#PARK} on a single processor.
+     */
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * Get the running average of the time for which the resource has been held.
+     * @return the average hold time in nanoseconds.
+     */
+    public long getAverageHoldNanos() {
+        return averageHoldNanos;
+    }
+
+    /**
+     * requestResource is used when a process wants access to the object, without saying how long it will hold it for.
+     * The recent average hold time is used in place of the actual hold time.
      */
     @Override
     public void requestResource(int priority) throws ResourceError {
+        request(priority, averageHoldNanos);
+    }
+
+    /**
+     * requestResource is used when a process wants access to the object. If the resource is free, and can be used for
+     * the time required before the next reservation starts, it is taken straight away. Otherwise the process joins
+     * the queue for its priority and waits, using the wait strategy, until it is handed the resource.
+     */
+    @Override
+    public void requestResource(int priority, int timeRequired) throws ResourceError {
+        request(priority, TimeUnit.MILLISECONDS.toNanos(timeRequired));
+    }
+
+    private void request(int priority, long holdEstimate) throws ResourceError {
+        checkPriority(priority);
+        ResourceGrantEvent grantEvent = ResourceEvents.beginGrant();
+        ResourceTimeoutEvent timeoutEvent = ResourceEvents.beginTimeout();
+        Waiter waiter = null;
         lock.lock();
-        while (resourceInUse) {
-            increaseNumberWaiting(priority);
-            try {
-                synchronized(queues[priority]) {
-                    lock.unlock();
-                    queues[priority].wait();
-                    lock.lock();
+        try {
+            long now = System.nanoTime();
+            boolean fits = calendar.overlapping(now, now + holdEstimate) == null;
+            if (!resourceInUse && fits) {
+                grant(now, priority);
+            } else {
+                waiter = new Waiter(priority, holdEstimate);
+                queues[priority].addLast(waiter);
+                increaseNumberWaiting(priority);
+                if (!resourceInUse) {
+                    scheduleDispatch(now);
+                } else if (fits && priority >= preemptionPriority && priority > holderPriority) {
+                    // the holder yields early, but the release dispatches to waiters as usual, not to this one directly
+                    getResource().revoke();
                 }
-            } catch (InterruptedException error) {
-                throw new ResourceError(getResourceName() + " was interrupted while waiting in priority " + priority + " queue - " + error.getMessage());
             }
+        } finally {
+            lock.unlock();
         }
-        resourceInUse = true;
-        lock.unlock();
+        ResourceEvents.request(getResourceName(), priority, waiter != null);
+        if (waiter != null && !awaitGrant(waiter)) {
+            cancel(waiter, timeoutEvent);
+        }
+        ResourceEvents.endGrant(grantEvent, getResourceName(), priority);
     }
 
     /**
-     * releaseResource releases the resource from requesting use of the object.
+     * releaseResource hands the resource over to the holder of a reservation that is waiting for it, or otherwise to
+     * the longest waiting process of the highest priority waiting that can use it before the next reservation starts.
+     * If there is no such process the resource is marked as free.
+     * A reservation holder is reported as having the highest priority.
      */
     @Override
     public int releaseResource() throws ResourceError {
+        Waiter next;
+        long holdTime;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long average = averageHoldNanos;
+            holdTime = now - grantedAt;
+            averageHoldNanos = average + ((holdTime - average) >> HOLD_AVERAGE_SHIFT);
+            if (heldReservation != null) {
+                calendar.remove(heldReservation);
+                heldReservation = null;
+            }
+            resourceInUse = false;
+            next = dispatch(now);
+        } finally {
+            lock.unlock();
+        }
+        int highestPriorityWaiting = next == null ? NONE_WAITING : next.priority;
+        if (next != null && next.parked) {
+            LockSupport.unpark(next.thread);
+        }
+        ResourceEvents.release(getResourceName(), holdTime, highestPriorityWaiting);
+        return highestPriorityWaiting;
+    }
+
+    /**
+     * Reserve the resource for a period in the future.  On-demand requests will only be granted during the period
+     * if they would finish before it starts.
+     * @param delay the time, in milliseconds, from now until the start of the period.
+     * @param duration the length of the period, in milliseconds.
+     * @return the reservation, to be claimed with {@link #claimReservation(Reservation)}.
+     * @throws ResourceError if the period clashes with an existing reservation.
+     */
+    @Override
+    public Reservation reserve(long delay, int duration) throws ResourceError {
+        if (delay < 0 || duration <= 0) {
+            throw new ResourceError("cannot reserve " + getResourceName() + " for " + duration + "ms in " + delay + "ms");
+        }
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        Reservation reservation = new Reservation(getResource().getName(), start, start + TimeUnit.MILLISECONDS.toNanos(duration));
         lock.lock();
-        int highestPriorityWaiting = NONE_WAITING;
+        try {
+            calendar.removeEnded(System.nanoTime());
+            calendar.add(reservation);
+        } finally {
+            lock.unlock();
+        }
+        return reservation;
+    }
+
+    /**
+     * Cancel a reservation that has not been claimed.  Processes that were waiting for the reserved period to end
+     * may be handed the resource straight away.
+     * @param reservation the reservation to be cancelled.
+     */
+    @Override
+    public void cancelReservation(Reservation reservation) {
+        Waiter next = null;
+        lock.lock();
+        try {
+            if (reservation != heldReservation && reservation != pendingReservation
+                    && calendar.remove(reservation) && !resourceInUse) {
+                next = dispatch(System.nanoTime());
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (next != null && next.parked) {
+            LockSupport.unpark(next.thread);
+        }
+    }
+
+    /**
+     * Wait until the start of a reservation, and then take the resource.  If a process is still using the resource,
+     * because it overran, the reservation holder takes the resource as soon as it is released, ahead of any other
+     * waiting process.  The resource is then used and released as usual.
+     * @param reservation the reservation being claimed.
+     * @throws ResourceError if the reservation has already been claimed, has ended or been cancelled, or if
+     * interrupted while waiting.
+     */
+    @Override
+    public void claimReservation(Reservation reservation) throws ResourceError {
+        // sleeping can wake a little early, which would make the claim look too early for the reservation
+        long delay;
+        while ((delay = reservation.getStart() - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, delay);
+            if (Thread.interrupted()) {
+                throw new ResourceError("interrupted while waiting for the start of the " + reservation);
+            }
+        }
+        ResourceTimeoutEvent timeoutEvent = ResourceEvents.beginTimeout();
+        Waiter waiter = null;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            calendar.removeEnded(now);
+            if (reservation == heldReservation || reservation == pendingReservation) {
+                throw new ResourceError("the " + reservation + " has already been claimed");
+            }
+            if (calendar.overlapping(now, now + 1) != reservation) {
+                throw new ResourceError("the " + reservation + " has ended or been cancelled");
+            }
+            if (!resourceInUse) {
+                grant(now, NO_PREEMPTION);
+                heldReservation = reservation;
+            } else {
+                waiter = new Waiter(NO_OF_PRIORITIES - 1, 0);
+                reservationWaiter = waiter;
+                pendingReservation = reservation;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (waiter != null && !awaitGrant(waiter)) {
+            cancel(waiter, timeoutEvent);
+        }
+    }
+
+    /**
+     * Hand the free resource over to a waiting reservation holder, or to the longest waiting process of the highest
+     * priority waiting whose request fits before the next reservation.  If there are waiting processes, but none of
+     * them fit, arrange to try again when the blocking reservation ends.  Called while holding the lock.
+     * @param now the current time, from System.nanoTime().
+     * @return the waiter the resource was handed to, or null if it is still free.
+     */
+    private Waiter dispatch(long now) {
+        Waiter next = reservationWaiter;
+        if (next != null) {
+            heldReservation = pendingReservation;
+            pendingReservation = null;
+            reservationWaiter = null;
+        } else {
+            calendar.removeEnded(now);
+            for (int index = NO_OF_PRIORITIES - 1; index >= 0 && next == null; index--) {
+                for (Waiter waiter: queues[index]) {
+                    if (calendar.overlapping(now, now + waiter.holdEstimate) == null) {
+                        next = waiter;
+                        queues[index].remove(waiter);
+                        decreaseNumberWaiting(index);
+                        break;
+                    }
+                }
+            }
+        }
+        if (next != null) {
+            grant(now, heldReservation != null ? NO_PREEMPTION : next.priority);
+            next.granted = true;
+        } else {
+            scheduleDispatch(now);
+        }
+        return next;
+    }
+
+    /**
+     * Mark the resource as in use, by a holder who may be preempted by requests of higher priority.  Any revocation
+     * aimed at the previous holder is withdrawn.  Called while holding the lock.
+     * @param now the current time, from System.nanoTime().
+     * @param priority the priority at which the holder requested the resource, or NO_PREEMPTION.
+     */
+    private void grant(long now, int priority) {
+        resourceInUse = true;
+        grantedAt = now;
+        holderPriority = priority;
+        getResource().clearRevocation();
+    }
+
+    /**
+     * If processes are waiting for a free resource because of a reservation, arrange for the resource to be
+     * dispatched again when the reservation ends, in case its holder never claims it.  Called while holding the lock.
+     * @param now the current time, from System.nanoTime().
+     */
+    private void scheduleDispatch(long now) {
+        boolean waiting = false;
         for (int index = 0; index < NO_OF_PRIORITIES; index++) {
-            if (getNumberWaiting(index) > 0) {
-                highestPriorityWaiting = index;
+            waiting |= getNumberWaiting(index) > 0;
+        }
+        Reservation blocking = calendar.overlapping(now, Long.MAX_VALUE);
+        if (!waiting || blocking == null || blocking.getEnd() == dispatchAt) {
+            return;
+        }
+        dispatchAt = blocking.getEnd();
+        if (timer == null) {
+            timer = new Timer(getResourceName() + " reservations", true);
+        }
+        timer.schedule(new TimerTask() {
+            public void run() {
+                Waiter next = null;
+                lock.lock();
+                try {
+                    if (!resourceInUse) {
+                        next = dispatch(System.nanoTime());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (next != null && next.parked) {
+                    LockSupport.unpark(next.thread);
+                }
             }
+        }, Math.max(0, TimeUnit.NANOSECONDS.toMillis(dispatchAt - now)) + 1);
+    }
+
+    /**
+     * Wait, using this manager's wait strategy, until the resource is handed over to a waiter.
+     * @param waiter the waiting resource user.
+     * @return true if the resource was handed over, false if the waiting thread was interrupted first.
+     */
+    private boolean awaitGrant(Waiter waiter) {
+        long spinNanos;
+        int yields;
+        switch (waitStrategy) {
+        case SPIN:
+            while (!waiter.granted) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                Thread.onSpinWait();
+            }
+            return true;
+        case SPIN_YIELD_PARK:
+            for (int spins = 0; spins < SPIN_LIMIT; spins++) {
+                if (waiter.granted) {
+                    return true;
+                }
+                Thread.onSpinWait();
+            }
+            yields = YIELD_LIMIT;
+            break;
+        case ADAPTIVE:
+            spinNanos = averageHoldNanos * 2;
+            if (spinNanos <= MAX_ADAPTIVE_SPIN_NANOS) {
+                long deadline = System.nanoTime() + spinNanos;
+                while (System.nanoTime() - deadline < 0) {
+                    if (waiter.granted) {
+                        return true;
+                    }
+                    Thread.onSpinWait();
+                }
+                yields = YIELD_LIMIT;
+            } else {
+                yields = 0;
+            }
+            break;
+        default:
+            yields = 0;
         }
-        if (highestPriorityWaiting != NONE_WAITING) {
-            decreaseNumberWaiting(highestPriorityWaiting);
-            synchronized(queues[highestPriorityWaiting]) {
-                queues[highestPriorityWaiting].notify();
+        for (int count = 0; count < yields; count++) {
+            if (waiter.granted) {
+                return true;
             }
+            Thread.yield();
         }
-        resourceInUse = false;
-        synchronized(this) {
+        return park(waiter);
+    }
+
+    /**
+     * Park until the resource is handed over to a waiter.  The parked flag is set before granted is checked, and the
+     * releaser sets granted before checking parked, so the releaser only unparks waiters that may actually be parked.
+     * @param waiter the waiting resource user.
+     * @return true if the resource was handed over, false if the waiting thread was interrupted first.
+     */
+    private boolean park(Waiter waiter) {
+        waiter.parked = true;
+        while (!waiter.granted) {
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            LockSupport.park(this);
+        }
+        return true;
+    }
+
+    /**
+     * Withdraw an interrupted waiter from its queue, or from claiming its reservation.  If the resource was handed
+     * over after all it is kept, and the interrupt is left for the resource user to deal with.
+     * @param waiter the interrupted resource user.
+     * @param timeoutEvent the event to commit if the waiter is withdrawn, or null if no recording has been started.
+     * @throws ResourceError if the waiter was withdrawn without the resource.
+     */
+    private void cancel(Waiter waiter, ResourceTimeoutEvent timeoutEvent) throws ResourceError {
+        lock.lock();
+        try {
+            if (waiter.granted) {
+                return;
+            }
+            if (waiter == reservationWaiter) {
+                reservationWaiter = null;
+                pendingReservation = null;
+            } else {
+                queues[waiter.priority].remove(waiter);
+                decreaseNumberWaiting(waiter.priority);
+            }
+        } finally {
             lock.unlock();
         }
-        return highestPriorityWaiting;
+        Thread.interrupted();
+        ResourceEvents.endTimeout(timeoutEvent, getResourceName(), waiter.priority);
+        throw new ResourceError(getResourceName() + " was interrupted while waiting in priority " + waiter.priority + " queue");
     }
 }
@@ -0,0 +1,144 @@
+package resourceManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A quota group limits how often its {@link ResourceUser}s may request resources, so that one user re-requesting a
+ * resource as fast as it releases it cannot monopolise a {@link ResourceManager}.
+ * <p>
+ * Each group has a token bucket, which fills at a fixed rate up to a maximum burst size.  A resource user must take
+ * a token from its group's bucket before each request, and waits for one if the bucket is empty.  This is enforced by
+ * giving the resource user its resources through {@link QuotaResourceManager}s.  Groups may be nested, in which case
+ * a token must also be taken from every enclosing group, so a tenant's users share the tenant's quota, and the
+ * tenants share their parent's.
+ * </p>
+ * <p>
+ * The bucket is lock free.  Rather than counting tokens it records the time at which the next token becomes
+ * available, and a resource user takes a token by advancing that time by one token's worth with a compare and set.
+ * If the time is in the future the resource user has reserved a token, and waits until then before requesting.
+ * </p>
+ */
+public class QuotaGroup
+{
+    /**
+     * This group's name.
+     */
+    private String name;
+    /**
+     * The group enclosing this one, or null if this is a top level group.
+     */
+    private QuotaGroup parent;
+    /**
+     * The time, in nanoseconds, it takes the bucket to gain one token.
+     */
+    private long tokenInterval;
+    /**
+     * The time, in nanoseconds, it takes a bucket holding one token to fill to its burst size.
+     */
+    private long burstInterval;
+    /**
+     * The time, from System.nanoTime(), at which the next token becomes available.  If this is burstInterval or
+     * more in the past the bucket is full.
+     */
+    private AtomicLong nextToken;
+
+    /**
+     * Create a top level quota group.
+     * @param name the group's name.
+     * @param rate the number of requests per second the group's users may make between them.
+     * @param burst the number of requests the group's users may make in quick succession, after a quiet period.
+     */
+    public QuotaGroup(String name,double rate,int burst) {
+        this(name,null,rate,burst);
+    }
+
+    /**
+     * Create a quota group nested in another.
+     * @param name the group's name.
+     * @param parent the enclosing group, whose quota this group's users must also respect, or null for none.
+     * @param rate the number of requests per second the group's users may make between them.
+     * @param burst the number of requests the group's users may make in quick succession, after a quiet period.
+     */
+    public QuotaGroup(String name,QuotaGroup parent,double rate,int burst) {
+        if (rate <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Quota group " + name + " needs a positive rate and burst");
+        }
+        this.name = name;
+        this.parent = parent;
+        tokenInterval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        burstInterval = tokenInterval * (burst - 1);
+        nextToken = new AtomicLong(System.nanoTime() - burstInterval);
+    }
+
+    /**
+     * Get the group's name.
+     * @return the group's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the group enclosing this one.
+     * @return the enclosing group, or null if this is a top level group.
+     */
+    public QuotaGroup getParent() {
+        return parent;
+    }
+
+    /**
+     * Take a token from this group, and each enclosing group, waiting until all of them are available.  If the
+     * resource user is interrupted while waiting the tokens it reserved are given back, as it will not be making the
+     * request they were for.
+     * @throws ResourceError if the resource user is interrupted while waiting.
+     */
+    public void acquire() throws ResourceError {
+        long now = System.nanoTime();
+        long wait = 0;
+        for (QuotaGroup group = this; group != null; group = group.parent) {
+            wait = Math.max(wait, group.reserve(now));
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException ie) {
+                for (QuotaGroup group = this; group != null; group = group.parent) {
+                    group.refund();
+                }
+                throw new ResourceError("interrupted while waiting for a token from quota group " + name + " - " + ie.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reserve the next token from this group's bucket.
+     * @param now the current time, from System.nanoTime().
+     * @return how long, in nanoseconds, until the reserved token becomes available - zero or less if it already is.
+     */
+    private long reserve(long now) {
+        long next;
+        long available;
+        do {
+            next = nextToken.get();
+            available = Math.max(next, now - burstInterval);
+        } while (!nextToken.compareAndSet(next, available + tokenInterval));
+        return available - now;
+    }
+
+    /**
+     * Give a reserved token back to this group's bucket.  The token returned need not be the one reserved, if others
+     * have been reserved since, but the bucket ends up holding as many tokens as if it had never been taken.
+     */
+    private void refund() {
+        nextToken.addAndGet(-tokenInterval);
+    }
+
+    /**
+     * Construct a string containing the group's name.
+     * @return a string containing the group's name, and its enclosing groups' names.
+     */
+    public String toString() {
+        return parent == null ? "quota group \"" + name + "\"" : parent + "/\"" + name + "\"";
+    }
+}
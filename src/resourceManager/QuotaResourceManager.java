@@ -0,0 +1,162 @@
+package resourceManager;
+
+/**
+ * Wraps a {@link ResourceManager}, making every request through it wait for a token from a {@link QuotaGroup}.
+ * Each resource user in a quota group is given its own wrappers, so it cannot request a resource without the quota.
+ * <p>
+ * Only new work is charged for.  A request for the rest of a use that was cut short by the resource being revoked
+ * was already paid for, so is let through, as are claims of reservations, which the manager has already set time
+ * aside for.
+ * </p>
+ */
+public class QuotaResourceManager implements ResourceManager
+{
+    /**
+     * The manager whose resource is being limited.
+     */
+    private ResourceManager manager;
+    /**
+     * The quota group tokens are taken from.
+     */
+    private QuotaGroup quota;
+    /**
+     * True if the last use was cut short, so the next request is for the rest of it.  Only the one resource user
+     * given this wrapper uses it, so this needs no synchronisation.
+     */
+    private boolean revoked = false;
+
+    /**
+     * @param manager the manager whose resource is to be limited.
+     * @param quota the quota group to take a token from before each request.
+     */
+    public QuotaResourceManager(ResourceManager manager,QuotaGroup quota) {
+        this.manager = manager;
+        this.quota = quota;
+    }
+
+    /**
+     * Get the quota group requests through this manager are limited by.
+     * @return the quota group.
+     */
+    public QuotaGroup getQuotaGroup() {
+        return quota;
+    }
+
+    /**
+     * Generate a random priority, in the range permitted by the wrapped manager.
+     * @return a random priority from the interval [0,MAX_PRIORITY].
+     */
+    @Override
+    public int getRandomPriority() {
+        return manager.getRandomPriority();
+    }
+
+    /**
+     * Get the name of the resource managed by the wrapped manager.
+     * @return the name of the resource.
+     */
+    @Override
+    public String getResourceName() {
+        return manager.getResourceName();
+    }
+
+    /**
+     * Check whether the wrapped manager's resource is exhausted.
+     * @return true iff the resource is exhausted.
+     */
+    @Override
+    public boolean resourceIsExhausted() {
+        return manager.resourceIsExhausted();
+    }
+
+    /**
+     * Wait for a token from the quota group, unless this is a request for the rest of a revoked use, and then pass
+     * the request on to the wrapped manager.
+     * @param priority the priority level at which the resource is being requested.
+     * @throws ResourceError if interrupted while waiting for a token, or if the wrapped manager throws it.
+     */
+    @Override
+    public void requestResource(int priority) throws ResourceError {
+        takeToken();
+        manager.requestResource(priority);
+    }
+
+    /**
+     * Wait for a token from the quota group, unless this is a request for the rest of a revoked use, and then pass
+     * the request on to the wrapped manager with the time it will be used for.
+     * @param priority the priority level at which the resource is being requested.
+     * @param timeRequired the time, in milliseconds, for which the resource will be used.
+     * @throws ResourceError if interrupted while waiting for a token, or if the wrapped manager throws it.
+     */
+    @Override
+    public void requestResource(int priority,int timeRequired) throws ResourceError {
+        takeToken();
+        manager.requestResource(priority, timeRequired);
+    }
+
+    /**
+     * Use the resource through the wrapped manager, noting whether the use was cut short.
+     * @param timeRequired the time, in milliseconds, for which the requesting user requires use of the resource.
+     * @return the time, in milliseconds, for which the user still requires the resource if it was revoked, or 0.
+     * @throws ResourceError if the wrapped manager throws it.
+     */
+    @Override
+    public int useResource(int timeRequired) throws ResourceError {
+        int timeRemaining = manager.useResource(timeRequired);
+        revoked = timeRemaining > 0;
+        return timeRemaining;
+    }
+
+    /**
+     * Release the resource through the wrapped manager.
+     * @return the priority level of the woken process if such exists, NONE_WAITING if not.
+     * @throws ResourceError if the wrapped manager throws it.
+     */
+    @Override
+    public int releaseResource() throws ResourceError {
+        return manager.releaseResource();
+    }
+
+    /**
+     * Reserve the resource through the wrapped manager.
+     * @param delay the time, in milliseconds, from now until the start of the period.
+     * @param duration the length of the period, in milliseconds.
+     * @return the reservation, to be claimed with {@link #claimReservation(Reservation)}.
+     * @throws ResourceError if the wrapped manager throws it.
+     */
+    @Override
+    public Reservation reserve(long delay,int duration) throws ResourceError {
+        return manager.reserve(delay, duration);
+    }
+
+    /**
+     * Cancel a reservation through the wrapped manager.
+     * @param reservation the reservation to be cancelled.
+     */
+    @Override
+    public void cancelReservation(Reservation reservation) {
+        manager.cancelReservation(reservation);
+    }
+
+    /**
+     * Claim a reservation through the wrapped manager, without taking a token.
+     * @param reservation the reservation being claimed.
+     * @throws ResourceError if the wrapped manager throws it.
+     */
+    @Override
+    public void claimReservation(Reservation reservation) throws ResourceError {
+        manager.claimReservation(reservation);
+    }
+
+    /**
+     * Take a token from the quota group, waiting if necessary, unless the request is for the rest of a revoked use.
+     * @throws ResourceError if interrupted while waiting for a token.
+     */
+    private void takeToken() throws ResourceError {
+        if (revoked) {
+            revoked = false;
+        } else {
+            quota.acquire();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package resourceManager;
+
+/**
+ * Wraps a {@link ResourceManager}, recording every request, grant, use and release made through it to a
+ * {@link TraceRecorder}.  The resource user is identified by the name of the calling thread.
+ * <p>
+ * A trace that has failed, or been closed, must not stop the resource being granted or released, so events that
+ * cannot be recorded are dropped, and the failure is left for {@link TraceRecorder#close()} to report.
+ * </p>
+ */
+public class RecordingResourceManager implements ResourceManager
+{
+    /**
+     * The manager whose resource is being recorded.
+     */
+    private ResourceManager manager;
+    /**
+     * The recorder the events are written to.
+     */
+    private TraceRecorder recorder;
+
+    /**
+     * @param manager the manager whose resource is to be recorded.
+     * @param recorder the recorder to write the events to.
+     */
+    public RecordingResourceManager(ResourceManager manager,TraceRecorder recorder) {
+        this.manager = manager;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Generate a random priority, in the range permitted by the wrapped manager.
+     * @return a random priority from the interval [0,MAX_PRIORITY].
+     */
+    @Override
+    public int getRandomPriority() {
+        return manager.getRandomPriority();
+    }
+
+    /**
+     * Get the name of the resource managed by the wrapped manager.
+     * @return the name of the resource.
+     */
+    @Override
+    public String getResourceName() {
+        return manager.getResourceName();
+    }
+
+    /**
+     * Check whether the wrapped manager's resource is exhausted.
+     * @return true iff the resource is exhausted.
+     */
+    @Override
+    public boolean resourceIsExhausted() {
+        return manager.resourceIsExhausted();
+    }
+
+    /**
+     * Record a request, pass it on to the wrapped manager, and record the grant once it returns.
+     * @param priority the priority level at which the resource is being requested.
+     * @throws ResourceError if the wrapped manager throws it.
+     */
+    @Override
+    public void requestResource(int priority) throws ResourceError {
+        String user = Thread.currentThread().getName();
+        recorder.recordIfOpen(TraceEvent.Type.REQUEST, user, getResourceName(), priority);
+        manager.requestResource(priority);
+        recorder.recordIfOpen(TraceEvent.Type.GRANT, user, getResourceName(), 0);
+    }
+
+    /**
+     * Record a request, pass it on to the wrapped manager with the time it will be used for, and record the grant
+     * once it returns.
+     * @param priority the priority level at which the resource is being requested.
+     * @param timeRequired the time, in milliseconds, for which the resource will be used.
+     * @throws ResourceError if the wrapped manager throws it.
+     */
+    @Override
+    public void requestResource(int priority,int timeRequired) throws ResourceError {
+        String user = Thread.currentThread().getName();
+        recorder.recordIfOpen(TraceEvent.Type.REQUEST, user, getResourceName(), priority);
+        manager.requestResource(priority, timeRequired);
+        recorder.recordIfOpen(TraceEvent.Type.GRANT, user, getResourceName(), 0);
+    }
+
+    /**
+     * Record the use of the resource, and then use it through the wrapped manager.
+     * @param timeRequired the time, in milliseconds, for which the requesting user requires use of the resource.
+     * @return the time, in milliseconds, for which the user still requires the resource if it was revoked, or 0.
+     * @throws ResourceError if the wrapped manager throws it.
+     */
+    @Override
+    public int useResource(int timeRequired) throws ResourceError {
+        recorder.recordIfOpen(TraceEvent.Type.USE, Thread.currentThread().getName(), getResourceName(), timeRequired);
+        return manager.useResource(timeRequired);
+    }
+
+    /**
+     * Release the resource through the wrapped manager, and then record the release.
+     * @return the priority level of the woken process if such exists, NONE_WAITING if not.
+     * @throws ResourceError if the wrapped manager throws it.
+     */
+    @Override
+    public int releaseResource() throws ResourceError {
+        int highestPriorityWaiting = manager.releaseResource();
+        recorder.recordIfOpen(TraceEvent.Type.RELEASE, Thread.currentThread().getName(), getResourceName(), 0);
+        return highestPriorityWaiting;
+    }
+
+    /**
+     * Reserve the resource through the wrapped manager.  Reservations are not recorded until they are claimed.
+     * @param delay the time, in milliseconds, from now until the start of the period.
+     * @param duration the length of the period, in milliseconds.
+     * @return the reservation, to be claimed with {@link #claimReservation(Reservation)}.
+     * @throws ResourceError if the wrapped manager throws it.
+     */
+    @Override
+    public Reservation reserve(long delay,int duration) throws ResourceError {
+        return manager.reserve(delay, duration);
+    }
+
+    /**
+     * Cancel a reservation through the wrapped manager.
+     * @param reservation the reservation to be cancelled.
+     */
+    @Override
+    public void cancelReservation(Reservation reservation) {
+        manager.cancelReservation(reservation);
+    }
+
+    /**
+     * Claim a reservation through the wrapped manager.  Once the claim returns it is recorded as a request at the
+     * highest priority, since that is how the resource manager reports reservation holders, granted straight away.
+     * @param reservation the reservation being claimed.
+     * @throws ResourceError if the wrapped manager throws it.
+     */
+    @Override
+    public void claimReservation(Reservation reservation) throws ResourceError {
+        String user = Thread.currentThread().getName();
+        manager.claimReservation(reservation);
+        recorder.recordIfOpen(TraceEvent.Type.REQUEST, user, getResourceName(), BasicResourceManager.NO_OF_PRIORITIES - 1);
+        recorder.recordIfOpen(TraceEvent.Type.GRANT, user, getResourceName(), 0);
+    }
+}
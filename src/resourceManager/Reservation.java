@@ -0,0 +1,80 @@
+package resourceManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A booking of a resource for a fixed period in the future, made through {@link ResourceManager#reserve(long, int)},
+ * or {@link ResourceSystem#reserve(String, long, int)}.
+ * <p>
+ * While the period lasts the resource manager will not grant the resource to on-demand requests, so the resource user
+ * holding the reservation can claim it with {@link ResourceManager#claimReservation(Reservation)} without having
+ * to queue behind them.
+ * </p>
+ */
+public class Reservation
+{
+    /**
+     * The name of the reserved resource.
+     */
+    private String resourceName;
+    /**
+     * The start and end of the reserved period, from System.nanoTime().
+     */
+    private long start;
+    private long end;
+
+    /**
+     * @param resourceName the name of the reserved resource.
+     * @param start the start of the reserved period, from System.nanoTime().
+     * @param end the end of the reserved period, from System.nanoTime().
+     */
+    Reservation(String resourceName,long start,long end) {
+        this.resourceName = resourceName;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Get the name of the reserved resource, as it was added to its {@link ResourceSystem}.
+     * @return the name of the reserved resource.
+     */
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    /**
+     * Get the start of the reserved period.
+     * @return the start of the reserved period, from System.nanoTime().
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Get the end of the reserved period.
+     * @return the end of the reserved period, from System.nanoTime().
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Check whether the reserved period overlaps a given period.
+     * @param from the start of the period, from System.nanoTime().
+     * @param to the end of the period, from System.nanoTime().
+     * @return true iff the periods overlap.
+     */
+    public boolean overlaps(long from,long to) {
+        return start < to && from < end;
+    }
+
+    /**
+     * Construct a string describing this reservation.
+     * @return a string containing the resource's name and the reserved period, relative to now.
+     */
+    public String toString() {
+        long now = System.nanoTime();
+        return "reservation of resource \"" + resourceName + "\" from " + TimeUnit.NANOSECONDS.toMillis(start - now)
+            + "ms to " + TimeUnit.NANOSECONDS.toMillis(end - now) + "ms from now";
+    }
+}
@@ -0,0 +1,75 @@
+package resourceManager;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The reservations of a single resource.
+ * <p>
+ * Reservations may not overlap, so they are kept in a map sorted by their start times, and a period can be checked
+ * against the calendar by looking at the reservation starting at or before it and the one starting after it.  The
+ * calendar is not thread safe; its resource manager only uses it while holding its lock.
+ * </p>
+ */
+class ReservationCalendar
+{
+    private TreeMap<Long,Reservation> reservations = new TreeMap<Long,Reservation>();
+
+    /**
+     * Check whether there are any reservations in the calendar.
+     * @return true iff there are no reservations.
+     */
+    boolean isEmpty() {
+        return reservations.isEmpty();
+    }
+
+    /**
+     * Find a reservation that overlaps a period.
+     * @param from the start of the period, from System.nanoTime().
+     * @param to the end of the period, from System.nanoTime().
+     * @return the earliest reservation overlapping the period, or null if it is free.
+     */
+    Reservation overlapping(long from,long to) {
+        Map.Entry<Long,Reservation> before = reservations.floorEntry(from);
+        if (before != null && before.getValue().overlaps(from, to)) {
+            return before.getValue();
+        }
+        Map.Entry<Long,Reservation> after = reservations.higherEntry(from);
+        if (after != null && after.getValue().overlaps(from, to)) {
+            return after.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Add a reservation to the calendar.
+     * @param reservation the new reservation.
+     * @throws ResourceError if the reservation overlaps one already in the calendar.
+     */
+    void add(Reservation reservation) throws ResourceError {
+        Reservation clash = overlapping(reservation.getStart(), reservation.getEnd());
+        if (clash != null) {
+            throw new ResourceError("the requested period clashes with the " + clash);
+        }
+        reservations.put(reservation.getStart(), reservation);
+    }
+
+    /**
+     * Remove a reservation from the calendar.
+     * @param reservation the reservation to be removed.
+     * @return true iff the reservation was in the calendar.
+     */
+    boolean remove(Reservation reservation) {
+        return reservations.remove(reservation.getStart(), reservation);
+    }
+
+    /**
+     * Remove all the reservations that have ended.
+     * @param now the current time, from System.nanoTime().
+     */
+    void removeEnded(long now) {
+        while (!reservations.isEmpty() && reservations.firstEntry().getValue().getEnd() <= now) {
+            reservations.pollFirstEntry();
+        }
+    }
+}
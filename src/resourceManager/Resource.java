@@ -1,5 +1,8 @@
 package resourceManager;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * Models a resource, that will be used by {@link ResourceUser}s, and managed by a {@link ResourceManager}.
  * A resource can be used by any number of resource users.  The resource's resource manager ensures that no more than
@@ -23,6 +26,15 @@ public class Resource
      * This resource's name.
      */
     private String name;
+    /**
+     * Whether the current user has been asked to yield the resource.  The revoker sets this before reading user, and
+     * the user sets user before reading this, so a user who is using the resource is always woken.
+     */
+    private volatile boolean revoked;
+    /**
+     * The thread currently using the resource, if any.
+     */
+    private volatile Thread user;
     
     /**
      * Set the resource's name and determine the number of times it can be used.
@@ -51,16 +63,59 @@ public class Resource
 
     /**
      * Use this resource, and print information about its use.
+     * <p>
+     * The use is a safe point at which the resource may be revoked (see {@link #revoke()}), in which case the user
+     * yields the resource early, and is told how much of its use remains, so that it can reissue it later.
+     * </p>
      * @param timeRequired the time, in milliseconds, for which the user wants to use the resource
+     * @return the time, in milliseconds, for which the user still needs the resource if the resource was revoked
+     * before it finished, or 0 if it finished.
      */
-    public void use(int timeRequired) {
+    public int use(int timeRequired) {
         Thread user = Thread.currentThread();
         System.out.println(user.getName() + " is using " + this);
-        try {
-            Thread.sleep(timeRequired);
-        } catch (InterruptedException ie) {
-            // not bothered if its interrupted
+        this.user = user;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeRequired);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0 && !revoked && !user.isInterrupted()) {
+            LockSupport.parkNanos(this, remaining);
         }
+        this.user = null;
+        if (revoked && remaining > 0) {
+            int remainingMillis = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
+            System.out.println(user.getName() + " has yielded " + this + " with " + remainingMillis + "ms of its use remaining");
+            return remainingMillis;
+        }
+        // not bothered if its interrupted
         System.out.println(user.getName() + " has finished using " + this);
+        return 0;
+    }
+
+    /**
+     * Ask the current user of this resource to yield it as soon as possible.  The request remains in force until
+     * {@link #clearRevocation()} is called, so a user who has been granted the resource, but has not yet started
+     * using it, will yield it as soon as it starts.
+     */
+    public void revoke() {
+        revoked = true;
+        Thread current = user;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    /**
+     * Withdraw any request to yield this resource, so that its next user can use it in full.
+     */
+    public void clearRevocation() {
+        revoked = false;
+    }
+
+    /**
+     * Check whether the current user of this resource has been asked to yield it.
+     * @return true iff the resource has been revoked.
+     */
+    public boolean isRevoked() {
+        return revoked;
     }
 }
@@ -0,0 +1,135 @@
+package resourceManager;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Emits the Flight Recorder events of the resource managers.
+ * <p>
+ * Creating the first event in a JVM loads Flight Recorder, which takes hundreds of milliseconds, so nothing is
+ * touched until Flight Recorder has been initialised by a recording being started.  Flight Recorder stays
+ * initialised once the recording stops, so after that an event is only created while its type is enabled by a
+ * running recording.  Events that time a wait are begun by a <tt>begin</tt> method, which returns null if the event
+ * is not being recorded, and finished by the corresponding <tt>end</tt> method, which accepts null.
+ * </p>
+ */
+final class ResourceEvents
+{
+    /**
+     * The event types, which are only looked up, registering the events with Flight Recorder, once it has been
+     * initialised.
+     */
+    private static final class Types {
+        static final EventType GRANT = EventType.getEventType(ResourceGrantEvent.class);
+        static final EventType TIMEOUT = EventType.getEventType(ResourceTimeoutEvent.class);
+        static final EventType REQUEST = EventType.getEventType(ResourceRequestEvent.class);
+        static final EventType RELEASE = EventType.getEventType(ResourceReleaseEvent.class);
+    }
+
+    private ResourceEvents() {
+    }
+
+    /**
+     * Check whether Flight Recorder has been initialised, so that the event types may be looked up.
+     * @return true iff Flight Recorder has been initialised.
+     */
+    static boolean initialised() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Start timing a wait for a resource.
+     * @return the grant event, or null if grants are not being recorded.
+     */
+    static ResourceGrantEvent beginGrant() {
+        if (!initialised() || !Types.GRANT.isEnabled()) {
+            return null;
+        }
+        ResourceGrantEvent event = new ResourceGrantEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Record a resource being granted, after the wait timed by the event.
+     * @param event the event returned by {@link #beginGrant()}, or null.
+     * @param resource the name of the resource.
+     * @param priority the priority at which the resource was requested.
+     */
+    static void endGrant(ResourceGrantEvent event,String resource,int priority) {
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.resource = resource;
+                event.priority = priority;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Start timing a wait for a resource that may be abandoned.
+     * @return the timeout event, or null if timeouts are not being recorded.
+     */
+    static ResourceTimeoutEvent beginTimeout() {
+        if (!initialised() || !Types.TIMEOUT.isEnabled()) {
+            return null;
+        }
+        ResourceTimeoutEvent event = new ResourceTimeoutEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Record a resource user giving up waiting for a resource.
+     * @param event the event returned by {@link #beginTimeout()}, or null.
+     * @param resource the name of the resource.
+     * @param priority the priority at which the resource was requested.
+     */
+    static void endTimeout(ResourceTimeoutEvent event,String resource,int priority) {
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.resource = resource;
+                event.priority = priority;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Record a request for a resource.
+     * @param resource the name of the resource.
+     * @param priority the priority of the request.
+     * @param contended whether the resource user had to wait.
+     */
+    static void request(String resource,int priority,boolean contended) {
+        if (initialised() && Types.REQUEST.isEnabled()) {
+            ResourceRequestEvent event = new ResourceRequestEvent();
+            if (event.shouldCommit()) {
+                event.resource = resource;
+                event.priority = priority;
+                event.contended = contended;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Record a resource being released.
+     * @param resource the name of the resource.
+     * @param holdTime the time, in nanoseconds, for which the resource was held.
+     * @param wokenPriority the priority of the resource user it was handed to, or NONE_WAITING.
+     */
+    static void release(String resource,long holdTime,int wokenPriority) {
+        if (initialised() && Types.RELEASE.isEnabled()) {
+            ResourceReleaseEvent event = new ResourceReleaseEvent();
+            if (event.shouldCommit()) {
+                event.resource = resource;
+                event.holdTime = holdTime;
+                event.wokenPriority = wokenPriority;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package resourceManager;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event recording a resource being granted to a resource user.  The event's duration is the time
+ * the resource user waited, from requesting the resource to being granted it.
+ * See {@link ContentionAnalyzer} for a summary of a recording.
+ */
+@Name(ResourceGrantEvent.NAME)
+@Label("Resource Grant")
+@Description("A resource user waiting for, and then being granted, a resource")
+@Category({"Resource Manager"})
+@StackTrace(false)
+class ResourceGrantEvent extends jdk.jfr.Event
+{
+    static final String NAME = "resourceManager.ResourceGrant";
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Priority")
+    int priority;
+}
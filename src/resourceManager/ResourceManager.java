@@ -48,15 +48,30 @@ public interface ResourceManager
      * @throws ResourceError if the implementing code throws an InterruptedException error.
      */
     public void requestResource(int priority) throws ResourceError;
+
+    /**
+     * Request use of this manager's resource, with the specified priority, saying how long it will be used for.
+     * Managers that can make use of the expected hold time (for instance to fit the request in before a reservation)
+     * should override this; by default the hold time is ignored.
+     * @param priority the priority level at which the resource is being requested.
+     * @param timeRequired the time, in milliseconds, for which the resource will be used.
+     * @throws ResourceError if the implementing code throws an InterruptedException error.
+     */
+    public default void requestResource(int priority,int timeRequired) throws ResourceError {
+        requestResource(priority);
+    }
     
     /**
      * Allow the resource to be used for a specified length of time.
      * Calls of this method <i>must</i> be protected by (properly implemented) calls of
      * requestResource() and releaseResource().
+     * If the manager revokes the resource, to hand it to a more urgent request, the use is cut short, and the user
+     * should release the resource and request it again for the time remaining.
      * @param timeRequired the time, in milliseconds, for which the requesting user requires use of the resource.
+     * @return the time, in milliseconds, for which the user still requires the resource if it was revoked, or 0.
      * @throws ResourceError if more than one user is using the resource, or if the resource is exhausted.
      */
-    public void useResource(int timeRequired) throws ResourceError;
+    public int useResource(int timeRequired) throws ResourceError;
     
     /**
      * Release this manager's resource.  If any users are waiting for the resource a waiting user with the
@@ -65,4 +80,36 @@ public interface ResourceManager
      * @throws ResourceError if the implementing code throws an InterruptedException error.
      */
     public int releaseResource() throws ResourceError;
+
+    /**
+     * Reserve this manager's resource for a period in the future.  Managers that can keep the resource free for a
+     * reservation should override this; by default reservations are refused.
+     * @param delay the time, in milliseconds, from now until the start of the period.
+     * @param duration the length of the period, in milliseconds.
+     * @return the reservation, to be claimed with {@link #claimReservation(Reservation)}.
+     * @throws ResourceError if the period clashes with an existing reservation, or the manager does not take
+     * reservations.
+     */
+    public default Reservation reserve(long delay,int duration) throws ResourceError {
+        throw new ResourceError(getResourceName() + " cannot be reserved");
+    }
+
+    /**
+     * Cancel a reservation of this manager's resource that has not been claimed.  By default there is nothing to
+     * cancel, as reservations are refused.
+     * @param reservation the reservation to be cancelled.
+     */
+    public default void cancelReservation(Reservation reservation) {
+    }
+
+    /**
+     * Wait until the start of a reservation of this manager's resource, and then take the resource.  The resource is
+     * then used and released as usual.
+     * @param reservation the reservation being claimed.
+     * @throws ResourceError if the reservation has ended or been cancelled, if interrupted while waiting, or if the
+     * manager does not take reservations.
+     */
+    public default void claimReservation(Reservation reservation) throws ResourceError {
+        throw new ResourceError(getResourceName() + " cannot be reserved");
+    }
 }
@@ -0,0 +1,33 @@
+package resourceManager;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event recording a resource user releasing a resource.
+ * See {@link ContentionAnalyzer} for a summary of a recording.
+ */
+@Name(ResourceReleaseEvent.NAME)
+@Label("Resource Release")
+@Category({"Resource Manager"})
+@StackTrace(false)
+class ResourceReleaseEvent extends jdk.jfr.Event
+{
+    static final String NAME = "resourceManager.ResourceRelease";
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Hold Time")
+    @Description("The time for which the resource was held")
+    @Timespan(Timespan.NANOSECONDS)
+    long holdTime;
+
+    @Label("Woken Priority")
+    @Description("The priority of the resource user the resource was handed to, or -1 if none were waiting")
+    int wokenPriority;
+}
@@ -0,0 +1,30 @@
+package resourceManager;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event recording a resource user's request for a resource.
+ * See {@link ContentionAnalyzer} for a summary of a recording.
+ */
+@Name(ResourceRequestEvent.NAME)
+@Label("Resource Request")
+@Category({"Resource Manager"})
+@StackTrace(false)
+class ResourceRequestEvent extends jdk.jfr.Event
+{
+    static final String NAME = "resourceManager.ResourceRequest";
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Priority")
+    int priority;
+
+    @Label("Contended")
+    @Description("Whether the resource was in use, so that the resource user had to wait")
+    boolean contended;
+}
@@ -1,6 +1,9 @@
 package resourceManager;
+import java.io.IOException;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.HashMap;
 
 /**
  * A resource system consists of a number of {@link ResourceManager}s, each managing an individual {@link Resource},
@@ -36,17 +39,42 @@ public class ResourceSystem
      * the system.
      */
     private Set<ResourceManager> managers;
+    /**
+     * The same managers, indexed by the names their resources were added with.
+     */
+    private Map<String,ResourceManager> managersByName;
     /**
      * The set of resource users in the system.
      */
     private Set<ResourceUser> users;
+    /**
+     * The quota groups limiting how often resource users may request resources, indexed by name.
+     */
+    private Map<String,QuotaGroup> quotaGroups;
+    /**
+     * The recorder tracing the system's workload, or null if it is not being traced.
+     */
+    private TraceRecorder recorder;
     
     /**
-     * Initialise the resource managers and resource users sets.
+     * Initialise the resource managers and resource users sets, and the quota groups.
      */
     public ResourceSystem() {
+        this(null);
+    }
+
+    /**
+     * Initialise the resource managers and resource users sets, and the quota groups, recording all use of the
+     * resources to a trace.  See {@link TraceRecorder}.  The recorder is closed, completing the trace, when
+     * {@link #run()} finishes.
+     * @param recorder the recorder to trace the system's workload to, or null if it is not to be traced.
+     */
+    public ResourceSystem(TraceRecorder recorder) {
         managers = new HashSet<ResourceManager>();
+        managersByName = new HashMap<String,ResourceManager>();
         users = new HashSet<ResourceUser>();
+        quotaGroups = new HashMap<String,QuotaGroup>();
+        this.recorder = recorder;
     }
     
     /**
@@ -59,9 +87,53 @@ public class ResourceSystem
      * @param name the name of the resource to be added.
      * @param maxUseages the maximum number of times this resource can be used (the actual number may
      * be lower - see {@link BasicResourceManager#BasicResourceManager(Resource, int)}.)
+     * @throws ResourceError if there is already a resource with this name.
      */
-    public void addResource(String name,int maxUseages) {
-        managers.add(new LockResourceManager(new Resource(name),maxUseages));
+    public void addResource(String name,int maxUseages) throws ResourceError {
+        addManager(name,new LockResourceManager(new Resource(name),maxUseages));
+    }
+
+    /**
+     * Add a new resource by creating one, with a manager that makes resource users wait in the given way.
+     * @param name the name of the resource to be added.
+     * @param maxUseages the maximum number of times this resource can be used (the actual number may
+     * be lower - see {@link BasicResourceManager#BasicResourceManager(Resource, int)}.)
+     * @param waitStrategy how resource users wait while the resource is in use - see {@link WaitStrategy}.
+     * @throws ResourceError if there is already a resource with this name.
+     */
+    public void addResource(String name,int maxUseages,WaitStrategy waitStrategy) throws ResourceError {
+        addManager(name,new LockResourceManager(new Resource(name),maxUseages,waitStrategy));
+    }
+
+    /**
+     * Add a new resource by creating one, with a manager that preempts its holder for urgent requests.
+     * @param name the name of the resource to be added.
+     * @param maxUseages the maximum number of times this resource can be used (the actual number may
+     * be lower - see {@link BasicResourceManager#BasicResourceManager(Resource, int)}.)
+     * @param waitStrategy how resource users wait while the resource is in use - see {@link WaitStrategy}.
+     * @param preemptionPriority requests at this priority or above revoke the resource from a lower priority holder -
+     * see {@link LockResourceManager#LockResourceManager(Resource, int, WaitStrategy, int)}.
+     * @throws ResourceError if there is already a resource with this name.
+     */
+    public void addResource(String name,int maxUseages,WaitStrategy waitStrategy,int preemptionPriority) throws ResourceError {
+        addManager(name,new LockResourceManager(new Resource(name),maxUseages,waitStrategy,preemptionPriority));
+    }
+
+    /**
+     * Add a resource manager, wrapping it to record its resource's use if the system is being traced.
+     * @param name the name of the new resource.
+     * @param manager the manager of the new resource.
+     * @throws ResourceError if there is already a resource with this name.
+     */
+    private void addManager(String name,ResourceManager manager) throws ResourceError {
+        if (managersByName.containsKey(name)) {
+            throw new ResourceError("there is already a resource called " + name);
+        }
+        if (recorder != null) {
+            manager = new RecordingResourceManager(manager,recorder);
+        }
+        managers.add(manager);
+        managersByName.put(name,manager);
     }
     
     /**
@@ -72,10 +144,121 @@ public class ResourceSystem
     public void addUser(String name,double maxDelay) {
         users.add(new ResourceUser(name,maxDelay,managers));
     }
+
+    /**
+     * Add a new top level quota group.  See {@link QuotaGroup}.
+     * @param name the name of the quota group.
+     * @param rate the number of requests per second the group's resource users may make between them.
+     * @param burst the number of requests the group's resource users may make in quick succession.
+     * @throws ResourceError if there is already a quota group with this name.
+     */
+    public void addQuotaGroup(String name,double rate,int burst) throws ResourceError {
+        addQuotaGroup(name,null,rate,burst);
+    }
+
+    /**
+     * Add a new quota group, nested in an existing one.  See {@link QuotaGroup}.
+     * @param name the name of the quota group.
+     * @param parentName the name of the enclosing quota group, or null for a top level group.
+     * @param rate the number of requests per second the group's resource users may make between them.
+     * @param burst the number of requests the group's resource users may make in quick succession.
+     * @throws ResourceError if there is already a quota group with this name, or no quota group with the parent's.
+     */
+    public void addQuotaGroup(String name,String parentName,double rate,int burst) throws ResourceError {
+        if (quotaGroups.containsKey(name)) {
+            throw new ResourceError("there is already a quota group called " + name);
+        }
+        QuotaGroup parent = parentName == null ? null : getQuotaGroup(parentName);
+        quotaGroups.put(name,new QuotaGroup(name,parent,rate,burst));
+    }
+
+    /**
+     * Add a new resource user, whose requests are limited by a quota group.
+     * The resource user may make use of all the resources created, but only through {@link QuotaResourceManager}s,
+     * so every request it makes waits for a token from the group.
+     * @param name the name of the resource user.
+     * @param maxDelay the maximum time, in seconds, that the resource user will ever use any resource.
+     * @param quotaGroupName the name of the quota group the resource user belongs to.
+     * @throws ResourceError if there is no quota group with the given name.
+     */
+    public void addUser(String name,double maxDelay,String quotaGroupName) throws ResourceError {
+        QuotaGroup quota = getQuotaGroup(quotaGroupName);
+        Set<ResourceManager> limitedManagers = new HashSet<ResourceManager>();
+        for (ResourceManager manager: managers) {
+            limitedManagers.add(new QuotaResourceManager(manager,quota));
+        }
+        users.add(new ResourceUser(name,maxDelay,limitedManagers));
+    }
+
+    /**
+     * Find a quota group.
+     * @param name the name of the quota group.
+     * @return the quota group with the given name.
+     * @throws ResourceError if there is no quota group with the given name.
+     */
+    private QuotaGroup getQuotaGroup(String name) throws ResourceError {
+        QuotaGroup group = quotaGroups.get(name);
+        if (group == null) {
+            throw new ResourceError("there is no quota group called " + name);
+        }
+        return group;
+    }
+    
+    /**
+     * Reserve a resource for a period in the future.  See {@link ResourceManager#reserve(long, int)}.
+     * @param resourceName the name of the resource to be reserved.
+     * @param delay the time, in milliseconds, from now until the start of the period.
+     * @param duration the length of the period, in milliseconds.
+     * @return the reservation, to be claimed with {@link #claimReservation(Reservation)}.
+     * @throws ResourceError if there is no resource with the given name, or the period clashes with an existing
+     * reservation.
+     */
+    public Reservation reserve(String resourceName,long delay,int duration) throws ResourceError {
+        return getManager(resourceName).reserve(delay,duration);
+    }
+
+    /**
+     * Cancel a reservation that has not been claimed.  See {@link ResourceManager#cancelReservation(Reservation)}.
+     * @param reservation the reservation to be cancelled.
+     * @throws ResourceError if the reserved resource is not in this system.
+     */
+    public void cancelReservation(Reservation reservation) throws ResourceError {
+        getManager(reservation.getResourceName()).cancelReservation(reservation);
+    }
+
+    /**
+     * Wait until the start of a reservation, and then take the reserved resource, which is then used and released
+     * through its manager as usual.  See {@link ResourceManager#claimReservation(Reservation)}.
+     * @param reservation the reservation being claimed.
+     * @return the manager of the reserved resource.
+     * @throws ResourceError if the reserved resource is not in this system, the reservation has ended or been
+     * cancelled, or if interrupted while waiting.
+     */
+    public ResourceManager claimReservation(Reservation reservation) throws ResourceError {
+        ResourceManager manager = getManager(reservation.getResourceName());
+        manager.claimReservation(reservation);
+        return manager;
+    }
+
+    /**
+     * Find the manager of a resource.
+     * @param name the name of the resource.
+     * @return the manager of the resource with the given name.
+     * @throws ResourceError if there is no resource with the given name.
+     */
+    private ResourceManager getManager(String name) throws ResourceError {
+        ResourceManager manager = managersByName.get(name);
+        if (manager == null) {
+            throw new ResourceError("there is no resource called " + name);
+        }
+        return manager;
+    }
     
     /**
      * Run this resource user.  Each resource user will run until all the resources at its disposal are exhausted.
-     * @throws ResourceError if there is an InterruptedException while the system waits to <tt>join()</tt> the resource users.
+     * If the system is being traced the trace is completed, and its recorder closed, once they have all finished.
+     * @throws ResourceError if there is an InterruptedException while the system waits to <tt>join()</tt> the resource users,
+     * or if the trace cannot be completed.
      */
     public void run() throws ResourceError {
         for (ResourceUser user: users) {
@@ -91,5 +274,12 @@ public class ResourceSystem
             throw new ResourceError("The system was interrupted while waiting for the resource users to terminate.\n" + ie.getMessage());
         }
         System.out.println("All processes finished");
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException ioe) {
+                throw new ResourceError("The trace of the system could not be completed.\n" + ioe.getMessage());
+            }
+        }
     }
 }
@@ -1,5 +1,7 @@
 package resourceManager;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * Demonstrates the use of {@link Resource}s, {@link ResourceManager}s and {@link ResourceUser}s in a
@@ -12,13 +14,16 @@ public class ResourceSystemMain
 {
     /**
      * Runs a resource system with four users sharing one resource.
-	 * @param args not used.
+	 * @param args optionally, a file to record a trace of the run to, for {@link TraceReplayer}.
 	 * @throws ResourceError if there is an error while running the resource system.
      * See {@link ResourceSystem#run}
+	 * @throws IOException if the trace file cannot be created.
      */
-	public static void main(String[] args) throws ResourceError
+	public static void main(String[] args) throws ResourceError, IOException
 	{
-		ResourceSystem resourceSystem = new ResourceSystem();
+		// the recorder is closed by run(), once all the users have finished
+		TraceRecorder recorder = args.length > 0 ? new TraceRecorder(Paths.get(args[0])) : null;
+		ResourceSystem resourceSystem = new ResourceSystem(recorder);
 		resourceSystem.addResource("A", 20); // The resource - may be used up to 20 times
 		resourceSystem.addUser("1",0.1); // User 1 uses the resource for up to 1/10 second each time
 		resourceSystem.addUser("2",0.1); // User 2 uses the resource for up to 1/10 second each time
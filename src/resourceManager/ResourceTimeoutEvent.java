@@ -0,0 +1,28 @@
+package resourceManager;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event recording a resource user giving up waiting for a resource, because it was interrupted.
+ * The event's duration is the time the resource user waited before giving up.
+ * See {@link ContentionAnalyzer} for a summary of a recording.
+ */
+@Name(ResourceTimeoutEvent.NAME)
+@Label("Resource Timeout")
+@Description("A resource user giving up waiting for a resource")
+@Category({"Resource Manager"})
+@StackTrace(false)
+class ResourceTimeoutEvent extends jdk.jfr.Event
+{
+    static final String NAME = "resourceManager.ResourceTimeout";
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Priority")
+    int priority;
+}
@@ -87,6 +87,8 @@ public class ResourceUser extends Thread
      *  <li> Request a resource at a random priority level.
      *  <li> Wait, if necessary, for the resource to become available
      *  <li> Use the resource for a random length of time.
+     *  <li> If the resource was revoked before that time was up, request it again, at the same priority, for the
+     *       time remaining.
      * </ul>
      */
     public void run() {
@@ -102,16 +104,18 @@ public class ResourceUser extends Thread
                 priority = manager.getRandomPriority(); // set a random priority for this resource request
                 try {
                     int timeRequired = random.nextInt(maxTimeRequiredMillis)+1; // pick a length of time to request use of the resource for
-                    System.out.println(this + " is requesting " + manager.getResourceName());
-                    manager.requestResource(priority); // request the resource - the resource manager should suspend this resource user if the resource is not available
-                    System.out.println(this + " gained access to " + manager.getResourceName()); // request successful - resource available
-                    manager.useResource(timeRequired); // use the resource
-                    int newThreadsPriority = manager.releaseResource(); // release the resource - the request returns the priority of the process, if any, woken by this request
-                    if (newThreadsPriority == BasicResourceManager.NONE_WAITING) {
-                        System.out.println(this + " released " + manager.getResourceName() + ", there were no waiting processes");
-                    } else {
-                        System.out.println(this + " released " + manager.getResourceName() + ", to a process with priority " + newThreadsPriority);
-                    }
+                    do {
+                        System.out.println(this + " is requesting " + manager.getResourceName());
+                        manager.requestResource(priority,timeRequired); // request the resource - the resource manager should suspend this resource user if the resource is not available
+                        System.out.println(this + " gained access to " + manager.getResourceName()); // request successful - resource available
+                        timeRequired = manager.useResource(timeRequired); // use the resource - the time still required is returned if the resource was revoked
+                        int newThreadsPriority = manager.releaseResource(); // release the resource - the request returns the priority of the process, if any, woken by this request
+                        if (newThreadsPriority == BasicResourceManager.NONE_WAITING) {
+                            System.out.println(this + " released " + manager.getResourceName() + ", there were no waiting processes");
+                        } else {
+                            System.out.println(this + " released " + manager.getResourceName() + ", to a process with priority " + newThreadsPriority);
+                        }
+                    } while (timeRequired > 0); // reissue the rest of the work, at the same priority, if the resource was revoked
                 } catch (ResourceError error) {
                     System.out.println("***" + error.getMessage());
                 }
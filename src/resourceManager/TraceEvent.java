@@ -0,0 +1,112 @@
+package resourceManager;
+
+/**
+ * A single event in a trace of a {@link ResourceSystem}'s workload, as recorded by a {@link TraceRecorder}.
+ */
+public class TraceEvent
+{
+    /**
+     * The kinds of event in a trace.
+     */
+    public enum Type {
+        /**
+         * A resource user requested a resource.
+         */
+        REQUEST,
+        /**
+         * A resource user was granted a resource it requested.
+         */
+        GRANT,
+        /**
+         * A resource user started using a resource, for the time given by {@link TraceEvent#getHoldTime()}.
+         */
+        USE,
+        /**
+         * A resource user released a resource.
+         */
+        RELEASE
+    }
+
+    private Type type;
+    private long time;
+    private String user;
+    private String resource;
+    private int priority;
+    private int holdTime;
+
+    /**
+     * @param type the kind of event.
+     * @param time the time of the event, in nanoseconds since recording started.
+     * @param user the name of the resource user.
+     * @param resource the name of the resource.
+     * @param priority the priority of the request, for a {@link Type#REQUEST} event, zero otherwise.
+     * @param holdTime the time, in milliseconds, the user asked to use the resource for, for a {@link Type#USE}
+     * event, zero otherwise.
+     */
+    public TraceEvent(Type type,long time,String user,String resource,int priority,int holdTime) {
+        this.type = type;
+        this.time = time;
+        this.user = user;
+        this.resource = resource;
+        this.priority = priority;
+        this.holdTime = holdTime;
+    }
+
+    /**
+     * Get the kind of event.
+     * @return the kind of event.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get the time of the event, in nanoseconds since recording started.
+     * @return the time of the event, in nanoseconds since recording started.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Get the name of the resource user.
+     * @return the name of the resource user.
+     */
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * Get the name of the resource.
+     * @return the name of the resource.
+     */
+    public String getResource() {
+        return resource;
+    }
+
+    /**
+     * Get the priority of the request, for a {@link Type#REQUEST} event.
+     * @return the priority of the request, for a {@link Type#REQUEST} event.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Get the time, in milliseconds, the user asked to use the resource for, for a {@link Type#USE} event.
+     * @return the time, in milliseconds, the user asked to use the resource for, for a {@link Type#USE} event.
+     */
+    public int getHoldTime() {
+        return holdTime;
+    }
+
+    /**
+     * Construct a string describing this event.
+     * @return a string containing the event's time, type, user and resource.
+     */
+    public String toString() {
+        return time + " " + type + " " + user + " " + resource
+            + (type == Type.REQUEST ? " priority " + priority : "")
+            + (type == Type.USE ? " for " + holdTime + "ms" : "");
+    }
+}
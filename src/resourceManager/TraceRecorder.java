@@ -0,0 +1,307 @@
+package resourceManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records the workload of a {@link ResourceSystem} to a compact binary trace, which a {@link TraceReplayer} can
+ * feed back into any {@link ResourceManager}.
+ * <p>
+ * A trace starts with a four byte magic number and a version byte, followed by one record per event.  Each record is
+ * a type byte, the time since the previous record in nanoseconds, and the ids of the resource user and resource,
+ * followed by the priority for a request or the hold time for a use.  User and resource names are written once, in
+ * a definition record, the first time they appear, and are referred to by id after that.  Numbers are written as
+ * variable length integers, seven bits to a byte, so most records take only a few bytes.
+ * </p>
+ * <p>
+ * Recording must not disturb the workload being recorded, so resource users never wait for each other, or for the
+ * file, to record an event.  Each event is timestamped and added to a lock-free queue, and a writer thread drains
+ * the queue to the file.  The trace is only complete once the recorder has been closed.
+ * </p>
+ */
+public class TraceRecorder implements Closeable
+{
+    private static final int MAGIC = 0x52545243; // "RTRC"
+    private static final int VERSION = 1;
+    /**
+     * The record types - definitions of resource user and resource names, and then the events, in the order of
+     * {@link TraceEvent.Type}.
+     */
+    private static final int DEFINE_USER = 0;
+    private static final int DEFINE_RESOURCE = 1;
+    private static final int FIRST_EVENT = 2;
+
+    /**
+     * How long the writer thread sleeps for when it finds the queue empty.
+     */
+    private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The events recorded but not yet written.
+     */
+    private ConcurrentLinkedQueue<TraceEvent> queue = new ConcurrentLinkedQueue<TraceEvent>();
+    /**
+     * The thread writing the queued events to the trace.
+     */
+    private Thread writer;
+    private volatile boolean closed;
+    /**
+     * The exception that stopped the writer thread, if it failed.
+     */
+    private volatile IOException failure;
+
+    // only used by the writer thread, and by the constructor and close() before it starts and after it finishes
+    private DataOutputStream out;
+    private Map<String,Integer> userIds = new HashMap<String,Integer>();
+    private Map<String,Integer> resourceIds = new HashMap<String,Integer>();
+    /**
+     * When recording started, from System.nanoTime().
+     */
+    private long start;
+    /**
+     * The time of the last record, in nanoseconds since recording started.
+     */
+    private long last;
+
+    /**
+     * Start recording a trace to a file.
+     * @param file the trace file, which is created, or overwritten if it exists.
+     * @throws IOException if the file cannot be written.
+     */
+    public TraceRecorder(Path file) throws IOException {
+        this(Files.newOutputStream(file));
+    }
+
+    /**
+     * Start recording a trace to a stream.
+     * @param stream the stream to write the trace to.  It is closed when the recorder is.
+     * @throws IOException if the stream cannot be written.
+     */
+    public TraceRecorder(OutputStream stream) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        start = System.nanoTime();
+        last = 0;
+        writer = new Thread(this::drain, "TraceRecorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Record an event.  The event is timestamped and queued for the writer thread, without waiting for any other
+     * resource user.  Events are written in the order they were queued; an event timestamped just before the one
+     * queued ahead of it is written with that event's time, so records are always in time order.
+     * @param type the kind of event.
+     * @param user the name of the resource user.
+     * @param resource the name of the resource.
+     * @param value the priority of a {@link TraceEvent.Type#REQUEST}, or the hold time of a
+     * {@link TraceEvent.Type#USE}, in milliseconds, otherwise ignored.
+     * @throws ResourceError if the recorder has been closed, or the trace could not be written.
+     */
+    public void record(TraceEvent.Type type,String user,String resource,int value) throws ResourceError {
+        if (closed) {
+            throw new ResourceError("could not record " + type + " of " + resource + " - the trace has been closed");
+        }
+        IOException ioe = failure;
+        if (ioe != null) {
+            throw new ResourceError("could not record " + type + " of " + resource + " - " + ioe.getMessage());
+        }
+        recordIfOpen(type, user, resource, value);
+    }
+
+    /**
+     * Record an event if the trace is still open and has not failed, and otherwise drop it.  This is used on the
+     * resource users' path, which a closed or failed trace must not disturb; a failure of the writer thread is still
+     * reported by {@link #close()}.
+     * @param type the kind of event.
+     * @param user the name of the resource user.
+     * @param resource the name of the resource.
+     * @param value the priority of a {@link TraceEvent.Type#REQUEST}, or the hold time of a
+     * {@link TraceEvent.Type#USE}, in milliseconds, otherwise ignored.
+     */
+    void recordIfOpen(TraceEvent.Type type,String user,String resource,int value) {
+        if (closed || failure != null) {
+            return;
+        }
+        queue.add(new TraceEvent(type, System.nanoTime() - start, user, resource,
+                                 type == TraceEvent.Type.REQUEST ? value : 0,
+                                 type == TraceEvent.Type.USE ? value : 0));
+    }
+
+    /**
+     * Write queued events to the trace until the recorder is closed and the queue is empty, flushing the trace
+     * whenever the queue is empty.  Run by the writer thread.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                TraceEvent event = queue.poll();
+                if (event != null) {
+                    write(event);
+                } else if (closed && queue.isEmpty()) {
+                    break;
+                } else {
+                    out.flush();
+                    LockSupport.parkNanos(this, DRAIN_INTERVAL_NANOS);
+                }
+            }
+        } catch (IOException ioe) {
+            failure = ioe;
+        }
+    }
+
+    /**
+     * Write an event record, preceded by definitions of any names it introduces.
+     */
+    private void write(TraceEvent event) throws IOException {
+        int userId = define(userIds, DEFINE_USER, event.getUser());
+        int resourceId = define(resourceIds, DEFINE_RESOURCE, event.getResource());
+        long time = Math.max(event.getTime(), last);
+        out.writeByte(FIRST_EVENT + event.getType().ordinal());
+        writeNumber(out, time - last);
+        writeNumber(out, userId);
+        writeNumber(out, resourceId);
+        if (event.getType() == TraceEvent.Type.REQUEST) {
+            writeNumber(out, event.getPriority());
+        } else if (event.getType() == TraceEvent.Type.USE) {
+            writeNumber(out, event.getHoldTime());
+        }
+        last = time;
+    }
+
+    /**
+     * Find the id of a name, writing a definition record for it first if it is new.
+     */
+    private int define(Map<String,Integer> ids,int recordType,String name) throws IOException {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = ids.size();
+            ids.put(name, id);
+            out.writeByte(recordType);
+            writeNumber(out, id);
+            out.writeUTF(name);
+        }
+        return id;
+    }
+
+    /**
+     * Finish the trace, waiting for the writer thread to write every event recorded so far, and close its file.
+     * Events recorded after the recorder has been closed are rejected.
+     * @throws IOException if the trace cannot be written, or if interrupted while waiting for the writer thread.
+     */
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while finishing the trace - " + ie.getMessage());
+        }
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void writeNumber(DataOutputStream out,long number) throws IOException {
+        while ((number & ~0x7FL) != 0) {
+            out.writeByte((int) (number & 0x7F) | 0x80);
+            number >>>= 7;
+        }
+        out.writeByte((int) number);
+    }
+
+    private static long readNumber(DataInputStream in) throws IOException {
+        long number = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int next = in.readUnsignedByte();
+            number |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return number;
+            }
+        }
+        throw new IOException("malformed number in trace");
+    }
+
+    /**
+     * Read a trace file.
+     * @param file the trace file.
+     * @return the events in the trace, in the order they were recorded.
+     * @throws IOException if the file cannot be read, or is not a trace.
+     */
+    public static List<TraceEvent> read(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return read(stream);
+        }
+    }
+
+    /**
+     * Read a trace from a stream.
+     * @param stream the stream containing the trace.
+     * @return the events in the trace, in the order they were recorded.
+     * @throws IOException if the stream cannot be read, or does not contain a trace.
+     */
+    public static List<TraceEvent> read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+            throw new IOException("not a resource system trace");
+        }
+        List<String> users = new ArrayList<String>();
+        List<String> resources = new ArrayList<String>();
+        List<TraceEvent> events = new ArrayList<TraceEvent>();
+        TraceEvent.Type[] types = TraceEvent.Type.values();
+        long time = 0;
+        int recordType;
+        while ((recordType = in.read()) != -1) {
+            try {
+                if (recordType == DEFINE_USER) {
+                    readNumber(in);
+                    users.add(in.readUTF());
+                } else if (recordType == DEFINE_RESOURCE) {
+                    readNumber(in);
+                    resources.add(in.readUTF());
+                } else if (recordType - FIRST_EVENT < types.length) {
+                    TraceEvent.Type type = types[recordType - FIRST_EVENT];
+                    time += readNumber(in);
+                    String user = users.get((int) readNumber(in));
+                    String resource = resources.get((int) readNumber(in));
+                    int value = type == TraceEvent.Type.REQUEST || type == TraceEvent.Type.USE ? (int) readNumber(in) : 0;
+                    events.add(new TraceEvent(type, time, user, resource,
+                                              type == TraceEvent.Type.REQUEST ? value : 0,
+                                              type == TraceEvent.Type.USE ? value : 0));
+                } else {
+                    throw new IOException("unknown record type " + recordType + " in trace");
+                }
+            } catch (EOFException eofe) {
+                throw new IOException("trace ends part way through a record");
+            } catch (IndexOutOfBoundsException ioobe) {
+                throw new IOException("trace refers to an undefined user or resource");
+            }
+        }
+        return events;
+    }
+}
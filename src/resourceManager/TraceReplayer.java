@@ -0,0 +1,208 @@
+package resourceManager;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Replays a trace recorded by a {@link TraceRecorder} against any {@link ResourceManager} implementation, so that
+ * different implementations can be compared on identical traffic.
+ * <p>
+ * Each resource user in the trace is replayed by its own thread, which requests each resource at the time, and with
+ * the priority, recorded in the trace, and holds it for as long as it was held when the trace was recorded.  The
+ * replay can run at the original speed, or be accelerated, in which case all times are divided by the speed up.
+ * The time each request waits before being granted is measured, and reported alongside the waits recorded in the
+ * trace (also divided by the speed up).
+ * </p>
+ * <p>
+ * The resource is held by sleeping rather than by calling {@link ResourceManager#useResource(int)}, so a replay does
+ * not use up, or print the use of, the managers' resources.
+ * </p>
+ */
+public class TraceReplayer
+{
+    /**
+     * One request of a resource in the trace, from being requested to being released.
+     */
+    private static class Request {
+        String resource;
+        int priority;
+        long requestTime;
+        long grantTime;
+        long recordedWait;
+        long holdTime;
+    }
+
+    /**
+     * The complete requests made by each resource user in the trace, in the order they were made.
+     */
+    private Map<String,List<Request>> requestsByUser = new TreeMap<String,List<Request>>();
+    /**
+     * The names of the resources in the trace.
+     */
+    private List<String> resources = new ArrayList<String>();
+
+    /**
+     * @param trace the events recorded in a trace, in the order they were recorded.
+     */
+    public TraceReplayer(List<TraceEvent> trace) {
+        Map<String,Request> open = new HashMap<String,Request>();
+        for (TraceEvent event: trace) {
+            Request request;
+            switch (event.getType()) {
+            case REQUEST:
+                request = new Request();
+                request.resource = event.getResource();
+                request.priority = event.getPriority();
+                request.requestTime = event.getTime();
+                open.put(event.getUser(), request);
+                if (!resources.contains(event.getResource())) {
+                    resources.add(event.getResource());
+                }
+                break;
+            case GRANT:
+                request = open.get(event.getUser());
+                if (request != null) {
+                    request.grantTime = event.getTime();
+                    request.recordedWait = request.grantTime - request.requestTime;
+                }
+                break;
+            case RELEASE:
+                request = open.remove(event.getUser());
+                if (request != null && request.grantTime != 0) {
+                    request.holdTime = event.getTime() - request.grantTime;
+                    requestsByUser.computeIfAbsent(event.getUser(), user -> new ArrayList<Request>()).add(request);
+                }
+                break;
+            default:
+            }
+        }
+    }
+
+    /**
+     * Replay the trace against a new manager for each resource in it.
+     * @param managerFactory creates the manager for each resource in the trace.
+     * @param speedUp how many times faster than the original the trace is replayed.
+     * @return a report comparing, for each resource, the recorded waits with the waits during the replay.
+     * @throws ResourceError if any request or release fails, or if the replay is interrupted.
+     */
+    public String replay(Function<Resource,ResourceManager> managerFactory,double speedUp) throws ResourceError {
+        Map<String,ResourceManager> managers = new HashMap<String,ResourceManager>();
+        Map<String,List<Long>> recordedWaits = new TreeMap<String,List<Long>>();
+        Map<String,List<Long>> replayedWaits = new TreeMap<String,List<Long>>();
+        for (String resource: resources) {
+            managers.put(resource, managerFactory.apply(new Resource(resource)));
+            recordedWaits.put(resource, new ArrayList<Long>());
+            replayedWaits.put(resource, new ArrayList<Long>());
+        }
+        List<Thread> threads = new ArrayList<Thread>();
+        List<ResourceError> errors = new ArrayList<ResourceError>();
+        long start = System.nanoTime();
+        for (Map.Entry<String,List<Request>> entry: requestsByUser.entrySet()) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (Request request: entry.getValue()) {
+                        sleepUntil(start + (long) (request.requestTime / speedUp));
+                        ResourceManager manager = managers.get(request.resource);
+                        long requested = System.nanoTime();
+                        manager.requestResource(request.priority);
+                        long wait = System.nanoTime() - requested;
+                        sleepUntil(System.nanoTime() + (long) (request.holdTime / speedUp));
+                        manager.releaseResource();
+                        synchronized (replayedWaits) {
+                            recordedWaits.get(request.resource).add((long) (request.recordedWait / speedUp));
+                            replayedWaits.get(request.resource).add(wait);
+                        }
+                    }
+                } catch (ResourceError error) {
+                    synchronized (errors) {
+                        errors.add(error);
+                    }
+                }
+            }, entry.getKey());
+            threads.add(thread);
+            thread.start();
+        }
+        try {
+            for (Thread thread: threads) {
+                thread.join();
+            }
+        } catch (InterruptedException ie) {
+            throw new ResourceError("The replay was interrupted while waiting for the resource users to terminate.\n" + ie.getMessage());
+        }
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+        StringBuilder report = new StringBuilder();
+        for (String resource: recordedWaits.keySet()) {
+            report.append(resource).append(": ").append(replayedWaits.get(resource).size()).append(" requests\n");
+            report.append("  recorded wait ").append(summarise(recordedWaits.get(resource))).append('\n');
+            report.append("  replayed wait ").append(summarise(replayedWaits.get(resource))).append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * Sleep until a given time, even if interrupted, as {@link Resource#use(int)} does.
+     * @param deadline the time to wake, from System.nanoTime().
+     */
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Summarise a list of waits.
+     * @param waits the waits, in nanoseconds.
+     * @return the mean, median, 99th percentile and longest wait, in microseconds.
+     */
+    private static String summarise(List<Long> waits) {
+        if (waits.isEmpty()) {
+            return "-";
+        }
+        long[] sorted = new long[waits.size()];
+        long total = 0;
+        for (int index = 0; index < sorted.length; index++) {
+            sorted[index] = waits.get(index);
+            total += sorted[index];
+        }
+        Arrays.sort(sorted);
+        return String.format("mean %dus, median %dus, 99%% %dus, max %dus",
+                             TimeUnit.NANOSECONDS.toMicros(total / sorted.length),
+                             TimeUnit.NANOSECONDS.toMicros(sorted[sorted.length / 2]),
+                             TimeUnit.NANOSECONDS.toMicros(sorted[(int) Math.ceil(sorted.length * 0.99) - 1]),
+                             TimeUnit.NANOSECONDS.toMicros(sorted[sorted.length - 1]));
+    }
+
+    /**
+     * Replay a trace against a {@link LockResourceManager} using each {@link WaitStrategy} in turn, and then against a
+     * {@link CombiningResourceManager}.
+     * @param args the trace file, and optionally the speed up (default 1).
+     * @throws IOException if the trace cannot be read.
+     * @throws ResourceError if there is an error while replaying the trace.
+     */
+    public static void main(String[] args) throws IOException, ResourceError {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java resourceManager.TraceReplayer <trace> [speed up]");
+            return;
+        }
+        TraceReplayer replayer = new TraceReplayer(TraceRecorder.read(Paths.get(args[0])));
+        double speedUp = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        for (WaitStrategy waitStrategy: WaitStrategy.values()) {
+            System.out.println(waitStrategy);
+            System.out.print(replayer.replay(resource -> new LockResourceManager(resource, Integer.MAX_VALUE, waitStrategy), speedUp));
+        }
+        System.out.println("COMBINING");
+        System.out.print(replayer.replay(resource -> new CombiningResourceManager(resource, Integer.MAX_VALUE), speedUp));
+    }
+}
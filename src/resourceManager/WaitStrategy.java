@@ -0,0 +1,36 @@
+package resourceManager;
+
+/**
+ * The ways in which a {@link LockResourceManager} can make a resource user wait for its resource.
+ * <p>
+ * When the resource is only held for a few microseconds, suspending and resuming the waiting thread costs far more
+ * than the hold itself, and it is cheaper to spin until the resource is handed over.  When the resource is held for
+ * longer, spinning just burns processor time that the holder could be using, and the waiting thread should be parked.
+ * </p>
+ * <p>
+ * On a single processor the holder cannot run while a waiter spins, so every strategy parks, as {@link #PARK} does.
+ * </p>
+ */
+public enum WaitStrategy
+{
+    /**
+     * Spin, calling {@link Thread#onSpinWait()}, until the resource is handed over.  Gives the fastest hand over,
+     * but occupies a processor for as long as the resource user is waiting.
+     */
+    SPIN,
+    /**
+     * Spin for a bounded number of iterations, then yield the processor for a bounded number of iterations, and
+     * finally park until the resource is handed over.
+     */
+    SPIN_YIELD_PARK,
+    /**
+     * Park immediately until the resource is handed over.
+     */
+    PARK,
+    /**
+     * Spin for as long as the resource has recently been held for, if that is short, and park otherwise.  The
+     * resource manager keeps a running average of how long its resource is held for between being granted and
+     * released.
+     */
+    ADAPTIVE
+}
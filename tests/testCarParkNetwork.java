@@ -0,0 +1,136 @@
+import org.junit.jupiter.api.Test;
+import carpark.CarParkControl;
+import carpark.CarParkFullEvent;
+import carpark.CarParkNetwork;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class testCarParkNetwork {
+
+    private static final int STREAMS = 6;
+    private static final int CARS_PER_STREAM = 2000;
+
+    @Test
+    public void testSpacesStayWithinCapacity() throws InterruptedException {
+        CarParkControl[] controls = new CarParkControl[3];
+        for (int index = 0; index < controls.length; index++) {
+            controls[index] = new CarParkControl("Carpark " + (index + 1), 5);
+        }
+        CarParkNetwork network = new CarParkNetwork(controls);
+        AtomicBoolean outOfRange = new AtomicBoolean();
+        Thread[] streams = new Thread[2 * STREAMS];
+        for (int index = 0; index < streams.length; index++) {
+            boolean arriving = index % 2 == 0;
+            streams[index] = new Thread(() -> {
+                try {
+                    for (int car = 0; car < CARS_PER_STREAM; car++) {
+                        CarParkControl control = arriving ? network.enter() : network.leave();
+                        int spaces = control.getSpaces();
+                        if (spaces < 0 || spaces > control.getCapacity()) {
+                            outOfRange.set(true);
+                        }
+                    }
+                } catch (InterruptedException e) {}
+            });
+            streams[index].start();
+        }
+        for (Thread stream: streams) {
+            stream.join(60000);
+            assertFalse(stream.isAlive(), "a stream of cars is stuck waiting on the network");
+        }
+        assertFalse(outOfRange.get(), "a car park had fewer than no spaces, or more spaces than its capacity");
+        for (CarParkControl control: controls) {
+            assertEquals(control.getCapacity(), control.getSpaces(), control.getName() + " should be empty");
+        }
+    }
+
+    @Test
+    public void testFullCarParkDoesNotOverfill() throws InterruptedException {
+        CarParkControl control = new CarParkControl(2);
+        AtomicBoolean outOfRange = new AtomicBoolean();
+        Thread[] streams = new Thread[2 * STREAMS];
+        for (int index = 0; index < streams.length; index++) {
+            boolean arriving = index % 2 == 0;
+            streams[index] = new Thread(() -> {
+                try {
+                    for (int car = 0; car < CARS_PER_STREAM; car++) {
+                        if (arriving) {
+                            // mix waiting and non-waiting arrivals, so that tryEnter() can take a space enter() was woken for
+                            if (car % 2 == 0 || !control.tryEnter()) {
+                                control.enter();
+                            }
+                        } else {
+                            control.leave();
+                        }
+                        int spaces = control.getSpaces();
+                        if (spaces < 0 || spaces > control.getCapacity()) {
+                            outOfRange.set(true);
+                        }
+                    }
+                } catch (InterruptedException e) {}
+            });
+            streams[index].start();
+        }
+        for (Thread stream: streams) {
+            stream.join(60000);
+            assertFalse(stream.isAlive(), "a stream of cars is stuck waiting on the car park");
+        }
+        assertFalse(outOfRange.get(), "the car park had fewer than no spaces, or more spaces than its capacity");
+        assertTrue(control.getSpaces() == control.getCapacity(), "the car park should be empty");
+    }
+
+    @Test
+    public void testOneFullEventPerBlockedCar() throws InterruptedException, IOException {
+        CarParkControl control = new CarParkControl(1);
+        Path file = Files.createTempFile("carpark", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CarParkFullEvent.NAME);
+            recording.start();
+            control.enter();
+            Thread[] cars = new Thread[4];
+            for (int index = 0; index < cars.length; index++) {
+                cars[index] = new Thread(() -> {
+                    try {
+                        control.enter();
+                    } catch (InterruptedException e) {}
+                });
+                cars[index].start();
+            }
+            // each departure wakes every blocked car, but only lets one in
+            for (Thread car: cars) {
+                while (car.getState() != Thread.State.WAITING) {
+                    Thread.sleep(1);
+                }
+            }
+            for (int index = 0; index < cars.length; index++) {
+                control.leave();
+                Thread.sleep(50);
+            }
+            for (Thread car: cars) {
+                car.join(10000);
+                assertFalse(car.isAlive(), "a car is stuck waiting to enter");
+            }
+            recording.stop();
+            recording.dump(file);
+            int events = 0;
+            for (RecordedEvent event: RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals(CarParkFullEvent.NAME)) {
+                    events++;
+                }
+            }
+            assertEquals(cars.length, events, "each blocked car should be recorded once");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import org.junit.jupiter.api.Test;
+import resourceManager.BasicResourceManager;
+import resourceManager.CombiningResourceManager;
+import resourceManager.Resource;
+import resourceManager.ResourceError;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class testCombiningResourceManager {
+
+    private static final int USERS = 16;
+    private static final int REQUESTS_PER_USER = 20000;
+
+    private int counter;
+
+    @Test
+    public void testOnlyOneHolderAtATime() throws InterruptedException {
+        CombiningResourceManager manager = new CombiningResourceManager(new Resource("A"), 1);
+        AtomicInteger holders = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        AtomicBoolean failed = new AtomicBoolean();
+        Thread[] users = new Thread[USERS];
+        for (int index = 0; index < users.length; index++) {
+            users[index] = new Thread(() -> {
+                try {
+                    for (int request = 0; request < REQUESTS_PER_USER; request++) {
+                        manager.requestResource(request % BasicResourceManager.NO_OF_PRIORITIES);
+                        if (holders.incrementAndGet() != 1) {
+                            overlapped.set(true);
+                        }
+                        // not atomic, so updates are only all seen if the holders really were mutually exclusive
+                        counter++;
+                        holders.decrementAndGet();
+                        manager.releaseResource();
+                    }
+                } catch (ResourceError e) {
+                    failed.set(true);
+                }
+            });
+            users[index].start();
+        }
+        for (Thread user: users) {
+            user.join(120000);
+            assertFalse(user.isAlive(), "a resource user is stuck waiting for the resource");
+        }
+        assertFalse(failed.get(), "a request or release failed");
+        assertFalse(overlapped.get(), "two resource users held the resource at the same time");
+        assertEquals(USERS * REQUESTS_PER_USER, counter);
+    }
+
+    @Test
+    public void testBadPriorityOnlyFailsItsOwnRequest() throws ResourceError, InterruptedException {
+        CombiningResourceManager manager = new CombiningResourceManager(new Resource("A"), 1);
+        manager.requestResource(5);
+        AtomicBoolean refused = new AtomicBoolean();
+        Thread bad = new Thread(() -> {
+            try {
+                manager.requestResource(BasicResourceManager.NO_OF_PRIORITIES);
+            } catch (ResourceError e) {
+                refused.set(true);
+            }
+        });
+        bad.start();
+        bad.join(10000);
+        assertTrue(refused.get(), "a request at a priority out of range should be refused");
+        assertThrows(ResourceError.class, () -> manager.requestResource(-1));
+        assertEquals(BasicResourceManager.NONE_WAITING, manager.releaseResource());
+        manager.requestResource(5);
+        assertEquals(BasicResourceManager.NONE_WAITING, manager.releaseResource());
+    }
+}
@@ -0,0 +1,125 @@
+import org.junit.jupiter.api.Test;
+import carpark.CarParkContentionAnalyzer;
+import carpark.CarParkControl;
+import carpark.CarParkEmptyEvent;
+import carpark.CarParkFullEvent;
+import jdk.jfr.Recording;
+import resourceManager.ContentionAnalyzer;
+import resourceManager.LockResourceManager;
+import resourceManager.Resource;
+import resourceManager.ResourceError;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class testContentionAnalyzers {
+
+    private static final String[] RESOURCE_EVENTS = {
+        "resourceManager.ResourceRequest", "resourceManager.ResourceGrant",
+        "resourceManager.ResourceTimeout", "resourceManager.ResourceRelease"
+    };
+
+    @Test
+    public void testResourceContentionReport() throws ResourceError, InterruptedException, IOException {
+        LockResourceManager manager = new LockResourceManager(new Resource("A"), 20);
+        Path file = Files.createTempFile("resources", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String event: RESOURCE_EVENTS) {
+                recording.enable(event);
+            }
+            recording.start();
+            manager.requestResource(3);
+            Thread waiter = new Thread(() -> {
+                try {
+                    manager.requestResource(7);
+                    manager.releaseResource();
+                } catch (ResourceError e) {}
+            });
+            waiter.start();
+            while (manager.getNumberWaiting(7) == 0) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(20);
+            manager.releaseResource();
+            waiter.join(10000);
+            assertFalse(waiter.isAlive(), "the waiter was never handed the resource");
+            recording.stop();
+            recording.dump(file);
+
+            String report = new ContentionAnalyzer(file).toString();
+            assertTrue(report.contains(manager.getResourceName() + "\n"), "the report should have a section for the resource:\n" + report);
+            assertTrue(report.contains("requests: 2 (1 had to wait)"), "both requests, one contended, should be counted:\n" + report);
+            assertTrue(report.contains("grants: 2,"), "both grants should be counted:\n" + report);
+            assertTrue(report.contains("priority 7: 1 grants"), "the grant at priority 7 should be counted:\n" + report);
+            assertTrue(report.contains("priority 3: 1 grants"), "the grant at priority 3 should be counted:\n" + report);
+            assertTrue(report.contains("timeouts: 0"), "nothing timed out:\n" + report);
+            assertTrue(report.contains("releases: 2,"), "both releases should be counted:\n" + report);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testCarParkContentionReport() throws InterruptedException, IOException {
+        CarParkControl control = new CarParkControl("North", 1);
+        Path file = Files.createTempFile("carpark", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CarParkFullEvent.NAME);
+            recording.enable(CarParkEmptyEvent.NAME);
+            recording.start();
+            control.enter();
+            Thread arriving = new Thread(() -> {
+                try {
+                    control.enter();
+                } catch (InterruptedException e) {}
+            });
+            arriving.start();
+            while (arriving.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            control.leave();
+            arriving.join(10000);
+            assertFalse(arriving.isAlive(), "the arriving car never got in");
+            control.leave();
+            Thread leaving = new Thread(() -> {
+                try {
+                    control.leave();
+                } catch (InterruptedException e) {}
+            });
+            leaving.start();
+            while (leaving.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            control.enter();
+            leaving.join(10000);
+            assertFalse(leaving.isAlive(), "the leaving car never got out");
+            recording.stop();
+            recording.dump(file);
+
+            String report = new CarParkContentionAnalyzer(file).toString();
+            assertTrue(report.startsWith("North\n"), "the report should have a section for the car park:\n" + report);
+            assertTrue(report.contains("blocked on full: 1,"), "the car blocked by the full car park should be counted:\n" + report);
+            assertTrue(report.contains("blocked on empty: 1,"), "the car blocked by the empty car park should be counted:\n" + report);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testNoReportWithoutEvents() throws IOException {
+        Path file = Files.createTempFile("empty", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.start();
+            recording.stop();
+            recording.dump(file);
+            assertTrue(new ContentionAnalyzer(file).toString().isEmpty());
+            assertTrue(new CarParkContentionAnalyzer(file).toString().isEmpty());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
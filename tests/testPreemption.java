@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.Test;
+import resourceManager.LockResourceManager;
+import resourceManager.Resource;
+import resourceManager.ResourceError;
+import resourceManager.WaitStrategy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class testPreemption {
+
+    private static final int LOW_PRIORITY = 1;
+    private static final int URGENT_PRIORITY = 10;
+    private static final int PREEMPTION_PRIORITY = 8;
+    private static final int HOLD_TIME = 1000;
+
+    @Test
+    public void testRevokedHolderReRequestsRemainingTime() throws InterruptedException {
+        // a single use, so any cut short use that counted would exhaust the resource
+        LockResourceManager manager = new LockResourceManager(new Resource("A"), 1, WaitStrategy.PARK, PREEMPTION_PRIORITY);
+        List<Integer> requestedTimes = new CopyOnWriteArrayList<Integer>();
+        AtomicBoolean exhaustedAfterCutShortUse = new AtomicBoolean();
+        AtomicBoolean failed = new AtomicBoolean();
+        Thread holder = new Thread(() -> {
+            try {
+                int timeRequired = HOLD_TIME;
+                do {
+                    requestedTimes.add(timeRequired);
+                    manager.requestResource(LOW_PRIORITY, timeRequired);
+                    timeRequired = manager.useResource(timeRequired);
+                    if (timeRequired > 0 && manager.resourceIsExhausted()) {
+                        exhaustedAfterCutShortUse.set(true);
+                    }
+                    manager.releaseResource();
+                } while (timeRequired > 0);
+            } catch (ResourceError e) {
+                failed.set(true);
+            }
+        });
+        holder.start();
+        Thread.sleep(200); // let the holder start using the resource
+
+        long requestedAt = System.nanoTime();
+        Thread urgent = new Thread(() -> {
+            try {
+                manager.requestResource(URGENT_PRIORITY, 10);
+                manager.releaseResource();
+            } catch (ResourceError e) {
+                failed.set(true);
+            }
+        });
+        urgent.start();
+        urgent.join(10000);
+        long urgentWait = System.nanoTime() - requestedAt;
+        holder.join(10000);
+
+        assertFalse(urgent.isAlive() || holder.isAlive(), "a resource user is stuck waiting for the resource");
+        assertFalse(failed.get(), "a request, use or release failed");
+        assertTrue(urgentWait < TimeUnit.MILLISECONDS.toNanos(HOLD_TIME / 2),
+                   "the urgent request should not wait for the holder to finish its use");
+        assertEquals(2, requestedTimes.size(), "the holder should request the resource again once");
+        assertEquals(HOLD_TIME, (int) requestedTimes.get(0));
+        assertTrue(requestedTimes.get(1) > 0 && requestedTimes.get(1) < HOLD_TIME,
+                   "the holder should request the resource again for the remaining time only");
+        assertFalse(exhaustedAfterCutShortUse.get(), "a use that was cut short should not count towards exhaustion");
+        assertTrue(manager.resourceIsExhausted(), "the completed use should count towards exhaustion");
+    }
+
+    @Test
+    public void testSamePriorityRequestDoesNotPreempt() throws ResourceError, InterruptedException {
+        LockResourceManager manager = new LockResourceManager(new Resource("A"), 1, WaitStrategy.PARK, PREEMPTION_PRIORITY);
+        AtomicBoolean failed = new AtomicBoolean();
+        Thread holder = new Thread(() -> {
+            try {
+                manager.requestResource(URGENT_PRIORITY, 300);
+                if (manager.useResource(300) != 0) {
+                    failed.set(true);
+                }
+                manager.releaseResource();
+            } catch (ResourceError e) {
+                failed.set(true);
+            }
+        });
+        holder.start();
+        Thread.sleep(100); // let the holder start using the resource
+        manager.requestResource(URGENT_PRIORITY, 10); // urgent, but no higher than the holder's request
+        manager.releaseResource();
+        holder.join(10000);
+        assertFalse(failed.get(), "a holder of the same priority should not have its use cut short");
+        assertTrue(manager.resourceIsExhausted(), "the completed use should count towards exhaustion");
+    }
+}
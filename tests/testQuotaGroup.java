@@ -0,0 +1,109 @@
+import org.junit.jupiter.api.Test;
+import resourceManager.LockResourceManager;
+import resourceManager.QuotaGroup;
+import resourceManager.QuotaResourceManager;
+import resourceManager.Resource;
+import resourceManager.ResourceError;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class testQuotaGroup {
+
+    /**
+     * How late a token may be given out, allowing for the scheduler, before the test fails.
+     */
+    private static final long SLACK_MILLIS = 60;
+
+    @Test
+    public void testBurstGrantedStraightAway() throws ResourceError {
+        QuotaGroup group = new QuotaGroup("tenant", 10, 5);
+        long start = System.nanoTime();
+        for (int token = 0; token < 5; token++) {
+            group.acquire();
+        }
+        long burst = millisSince(start);
+        assertTrue(burst < SLACK_MILLIS, "a full bucket's burst should not wait, but took " + burst + "ms");
+        group.acquire();
+        long next = millisSince(start);
+        assertTrue(next >= 90, "a token after the burst should wait for the bucket to refill, but came after " + next + "ms");
+    }
+
+    @Test
+    public void testTokensRefillAtTheRate() throws ResourceError {
+        QuotaGroup group = new QuotaGroup("tenant", 50, 1);
+        long start = System.nanoTime();
+        for (int token = 0; token < 11; token++) {
+            group.acquire();
+        }
+        // the first token is in the bucket, and the next ten come one every 20ms
+        long elapsed = millisSince(start);
+        assertTrue(elapsed >= 190, "eleven tokens at 50 a second should take 200ms, but took " + elapsed + "ms");
+        assertTrue(elapsed < 200 + SLACK_MILLIS, "eleven tokens at 50 a second should take 200ms, but took " + elapsed + "ms");
+    }
+
+    @Test
+    public void testNestedGroupsShareTheirParentsQuota() throws ResourceError {
+        QuotaGroup parent = new QuotaGroup("tenant", 10, 2);
+        QuotaGroup first = new QuotaGroup("first", parent, 1000, 100);
+        QuotaGroup second = new QuotaGroup("second", parent, 1000, 100);
+        long start = System.nanoTime();
+        first.acquire();
+        first.acquire();
+        long burst = millisSince(start);
+        assertTrue(burst < SLACK_MILLIS, "the parent's burst should not wait, but took " + burst + "ms");
+        second.acquire();
+        long next = millisSince(start);
+        assertTrue(next >= 90, "a sibling should wait once the parent's burst is used up, but got a token after " + next + "ms");
+    }
+
+    @Test
+    public void testInterruptedAcquireGivesItsTokenBack() throws ResourceError, InterruptedException {
+        QuotaGroup group = new QuotaGroup("tenant", 5, 1);
+        group.acquire();
+        AtomicBoolean refused = new AtomicBoolean();
+        Thread waiter = new Thread(() -> {
+            try {
+                group.acquire();
+            } catch (ResourceError e) {
+                refused.set(true);
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        waiter.interrupt();
+        waiter.join(10000);
+        assertTrue(refused.get(), "an interrupted acquire should fail");
+        // without the refund the next token would be the one after the waiter's, 400ms after the first
+        long start = System.nanoTime();
+        group.acquire();
+        long waited = millisSince(start);
+        assertTrue(waited < 200 + SLACK_MILLIS, "the interrupted waiter's token should have been given back, but waited " + waited + "ms");
+    }
+
+    @Test
+    public void testEveryRequestThroughTheManagerTakesAToken() throws ResourceError {
+        QuotaGroup group = new QuotaGroup("tenant", 10, 2);
+        QuotaResourceManager manager = new QuotaResourceManager(new LockResourceManager(new Resource("A"), 20), group);
+        long start = System.nanoTime();
+        for (int request = 0; request < 3; request++) {
+            manager.requestResource(5);
+            manager.releaseResource();
+        }
+        long elapsed = millisSince(start);
+        assertTrue(elapsed >= 90, "the third request should wait for the quota, but all three took " + elapsed + "ms");
+    }
+
+    /**
+     * The time since a point.
+     * @param start the point, from System.nanoTime().
+     * @return the number of whole milliseconds since then.
+     */
+    private static long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
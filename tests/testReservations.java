@@ -0,0 +1,151 @@
+import org.junit.jupiter.api.Test;
+import resourceManager.LockResourceManager;
+import resourceManager.Reservation;
+import resourceManager.Resource;
+import resourceManager.ResourceError;
+import resourceManager.ResourceManager;
+import resourceManager.ResourceSystem;
+import resourceManager.TraceRecorder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class testReservations {
+
+    @Test
+    public void testOverlappingReservationsRefused() throws ResourceError {
+        LockResourceManager manager = new LockResourceManager(new Resource("A"), 20);
+        Reservation first = manager.reserve(1000, 1000);
+        assertThrows(ResourceError.class, () -> manager.reserve(1500, 1000));
+        assertThrows(ResourceError.class, () -> manager.reserve(500, 1000));
+        assertThrows(ResourceError.class, () -> manager.reserve(1200, 100));
+        manager.reserve(2000, 1000); // starts as the first ends
+        manager.cancelReservation(first);
+        manager.reserve(1500, 100); // fits now the first has been cancelled
+    }
+
+    @Test
+    public void testShortRequestBackfillsBeforeReservation() throws ResourceError, InterruptedException {
+        LockResourceManager manager = new LockResourceManager(new Resource("A"), 20);
+        Reservation reservation = manager.reserve(500, 200);
+        manager.requestResource(5, 50);
+        assertTrue(System.nanoTime() < reservation.getStart(), "a request that fits before the reservation should not wait");
+        manager.releaseResource();
+        long grantedAt = requestInThread(manager, 5, 1000);
+        assertTrue(grantedAt >= reservation.getEnd(), "a request that overlaps the reservation should wait until it ends");
+    }
+
+    @Test
+    public void testUnclaimedReservationDispatchedWhenItEnds() throws ResourceError, InterruptedException {
+        LockResourceManager manager = new LockResourceManager(new Resource("A"), 20);
+        Reservation reservation = manager.reserve(100, 200);
+        // nobody holds or releases the resource, so only the reservation's timer can hand it over
+        long grantedAt = requestInThread(manager, 5, 1000);
+        assertTrue(grantedAt >= reservation.getEnd(), "the request should wait until the reservation ends");
+        assertTrue(grantedAt < reservation.getEnd() + TimeUnit.SECONDS.toNanos(5),
+                   "the request should be granted when the unclaimed reservation ends");
+    }
+
+    @Test
+    public void testClaimedThroughRecordingResourceSystem() throws ResourceError, IOException {
+        ResourceSystem resourceSystem = new ResourceSystem(new TraceRecorder(new ByteArrayOutputStream()));
+        resourceSystem.addResource("A", 20);
+        assertThrows(ResourceError.class, () -> resourceSystem.reserve("B", 100, 100));
+        Reservation reservation = resourceSystem.reserve("A", 100, 200);
+        assertThrows(ResourceError.class, () -> resourceSystem.reserve("A", 150, 100));
+        ResourceManager manager = resourceSystem.claimReservation(reservation);
+        assertFalse(System.nanoTime() < reservation.getStart(), "a reservation should not be claimed before it starts");
+        manager.releaseResource();
+    }
+
+    @Test
+    public void testShortDelayReservationsClaimedOnTime() throws ResourceError {
+        LockResourceManager manager = new LockResourceManager(new Resource("A"), 20);
+        for (int claim = 0; claim < 200; claim++) {
+            Reservation reservation = manager.reserve(5, 50);
+            manager.claimReservation(reservation);
+            assertFalse(System.nanoTime() < reservation.getStart(), "a reservation should not be claimed before it starts");
+            manager.releaseResource();
+        }
+    }
+
+    @Test
+    public void testReservationCannotBeClaimedTwice() throws ResourceError, InterruptedException {
+        LockResourceManager manager = new LockResourceManager(new Resource("A"), 20);
+        Reservation held = manager.reserve(0, 500);
+        manager.claimReservation(held);
+        assertThrows(ResourceError.class, () -> manager.claimReservation(held));
+        manager.releaseResource();
+
+        Reservation pending = manager.reserve(100, 500);
+        manager.requestResource(5, 10); // fits before the reservation, and overruns into it
+        AtomicLong grantedAt = new AtomicLong();
+        Thread claimer = new Thread(() -> {
+            try {
+                manager.claimReservation(pending);
+                grantedAt.set(System.nanoTime());
+                manager.releaseResource();
+            } catch (ResourceError e) {}
+        });
+        claimer.start();
+        while (System.nanoTime() < pending.getStart() + TimeUnit.MILLISECONDS.toNanos(50)) {
+            Thread.sleep(10);
+        }
+        AtomicBoolean refused = new AtomicBoolean();
+        Thread secondClaimer = new Thread(() -> {
+            try {
+                manager.claimReservation(pending);
+                manager.releaseResource();
+            } catch (ResourceError e) {
+                refused.set(true);
+            }
+        });
+        secondClaimer.start();
+        secondClaimer.join(1000);
+        manager.releaseResource();
+        claimer.join(10000);
+        secondClaimer.join(10000);
+        assertTrue(refused.get(), "a reservation that is waiting to be granted should not be claimed again");
+        assertFalse(claimer.isAlive(), "the first claim should not be lost by the second");
+        assertTrue(grantedAt.get() != 0, "the first claim should be granted");
+    }
+
+    @Test
+    public void testReservationNamesTheResourceInTheSystem() throws ResourceError {
+        ResourceSystem resourceSystem = new ResourceSystem();
+        resourceSystem.addResource("A", 20);
+        assertThrows(ResourceError.class, () -> resourceSystem.addResource("A", 20));
+        Reservation first = resourceSystem.reserve("A", 1000, 100);
+        assertEquals("A", first.getResourceName());
+        resourceSystem.reserve(first.getResourceName(), 2000, 100);
+        resourceSystem.cancelReservation(first);
+    }
+
+    /**
+     * Request a resource from another thread, and wait for it to be granted and released.
+     * @return the time the resource was granted, from System.nanoTime().
+     */
+    private static long requestInThread(ResourceManager manager, int priority, int timeRequired) throws InterruptedException {
+        AtomicLong grantedAt = new AtomicLong();
+        Thread user = new Thread(() -> {
+            try {
+                manager.requestResource(priority, timeRequired);
+                grantedAt.set(System.nanoTime());
+                manager.releaseResource();
+            } catch (ResourceError e) {}
+        });
+        user.start();
+        user.join(10000);
+        assertFalse(user.isAlive(), "the request was never granted");
+        assertTrue(grantedAt.get() != 0, "the request failed");
+        return grantedAt.get();
+    }
+}
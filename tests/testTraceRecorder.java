@@ -0,0 +1,130 @@
+import org.junit.jupiter.api.Test;
+import resourceManager.LockResourceManager;
+import resourceManager.RecordingResourceManager;
+import resourceManager.Resource;
+import resourceManager.ResourceError;
+import resourceManager.TraceEvent;
+import resourceManager.TraceRecorder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class testTraceRecorder {
+
+    private static final int MAGIC = 0x52545243;
+    private static final int VERSION = 1;
+
+    @Test
+    public void testRoundTrip() throws ResourceError, IOException {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        TraceRecorder recorder = new TraceRecorder(trace);
+        recorder.record(TraceEvent.Type.REQUEST, "user 1", "A", 7);
+        recorder.record(TraceEvent.Type.GRANT, "user 1", "A", 0);
+        recorder.record(TraceEvent.Type.USE, "user 1", "A", 250);
+        recorder.record(TraceEvent.Type.REQUEST, "user 2", "B", 3);
+        recorder.record(TraceEvent.Type.RELEASE, "user 1", "A", 0);
+        recorder.close();
+
+        List<TraceEvent> events = TraceRecorder.read(new ByteArrayInputStream(trace.toByteArray()));
+        assertEquals(5, events.size());
+        TraceEvent.Type[] types = {TraceEvent.Type.REQUEST, TraceEvent.Type.GRANT, TraceEvent.Type.USE,
+                                   TraceEvent.Type.REQUEST, TraceEvent.Type.RELEASE};
+        String[] users = {"user 1", "user 1", "user 1", "user 2", "user 1"};
+        String[] resources = {"A", "A", "A", "B", "A"};
+        long last = 0;
+        for (int index = 0; index < events.size(); index++) {
+            TraceEvent event = events.get(index);
+            assertEquals(types[index], event.getType());
+            assertEquals(users[index], event.getUser());
+            assertEquals(resources[index], event.getResource());
+            assertTrue(event.getTime() >= last, "events should be in time order");
+            last = event.getTime();
+        }
+        assertEquals(7, events.get(0).getPriority());
+        assertEquals(250, events.get(2).getHoldTime());
+        assertEquals(3, events.get(3).getPriority());
+    }
+
+    @Test
+    public void testNumbersAtVariableLengthBoundaries() throws ResourceError, IOException {
+        int[] values = {0, 1, 127, 128, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE};
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        TraceRecorder recorder = new TraceRecorder(trace);
+        for (int value: values) {
+            recorder.record(TraceEvent.Type.USE, "user", "A", value);
+        }
+        recorder.close();
+        List<TraceEvent> events = TraceRecorder.read(new ByteArrayInputStream(trace.toByteArray()));
+        assertEquals(values.length, events.size());
+        for (int index = 0; index < values.length; index++) {
+            assertEquals(values[index], events.get(index).getHoldTime());
+        }
+    }
+
+    @Test
+    public void testMalformedTracesRejected() throws ResourceError, IOException {
+        assertThrows(IOException.class, () -> TraceRecorder.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 1})));
+
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        TraceRecorder recorder = new TraceRecorder(trace);
+        recorder.record(TraceEvent.Type.USE, "user", "A", 100000);
+        recorder.close();
+        byte[] complete = trace.toByteArray();
+        byte[] truncated = Arrays.copyOf(complete, complete.length - 1);
+        assertThrows(IOException.class, () -> TraceRecorder.read(new ByteArrayInputStream(truncated)));
+
+        // an unknown record type
+        assertThrows(IOException.class, () -> TraceRecorder.read(new ByteArrayInputStream(header(9))));
+        // a grant by resource user 0 of resource 0, neither of which has been defined
+        assertThrows(IOException.class, () -> TraceRecorder.read(new ByteArrayInputStream(header(3, 0, 0, 0))));
+        // a time that never ends
+        assertThrows(IOException.class, () -> TraceRecorder.read(new ByteArrayInputStream(
+            header(3, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0))));
+    }
+
+    @Test
+    public void testClosedTraceDoesNotStopRelease() throws ResourceError, IOException, InterruptedException {
+        TraceRecorder recorder = new TraceRecorder(new ByteArrayOutputStream());
+        RecordingResourceManager manager = new RecordingResourceManager(new LockResourceManager(new Resource("A"), 20), recorder);
+        manager.requestResource(5);
+        recorder.close();
+        assertThrows(ResourceError.class, () -> recorder.record(TraceEvent.Type.RELEASE, "user", "A", 0));
+        manager.releaseResource();
+        AtomicBoolean granted = new AtomicBoolean();
+        Thread user = new Thread(() -> {
+            try {
+                manager.requestResource(5);
+                granted.set(true);
+                manager.releaseResource();
+            } catch (ResourceError e) {}
+        });
+        user.start();
+        user.join(10000);
+        assertFalse(user.isAlive(), "the resource was never released");
+        assertTrue(granted.get(), "requests should still be granted once the trace is closed");
+    }
+
+    /**
+     * Construct a trace header followed by the given bytes.
+     */
+    private static byte[] header(int... bytes) throws IOException {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(trace);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        for (int b: bytes) {
+            out.writeByte(b);
+        }
+        return trace.toByteArray();
+    }
+}
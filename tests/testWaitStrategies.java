@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.Test;
+import resourceManager.BasicResourceManager;
+import resourceManager.LockResourceManager;
+import resourceManager.Resource;
+import resourceManager.ResourceError;
+import resourceManager.WaitStrategy;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class testWaitStrategies {
+
+    private static final int USERS = 8;
+    private static final int REQUESTS_PER_USER = 5000;
+
+    private int counter;
+
+    @Test
+    public void testOnlyOneHolderAtATime() throws InterruptedException {
+        for (WaitStrategy strategy: WaitStrategy.values()) {
+            LockResourceManager manager = new LockResourceManager(new Resource("A"), 1, strategy);
+            AtomicInteger holders = new AtomicInteger();
+            AtomicBoolean overlapped = new AtomicBoolean();
+            AtomicBoolean failed = new AtomicBoolean();
+            counter = 0;
+            // a spinning waiter never gives up its processor, so more of them than processors just starves the holder
+            Thread[] users = new Thread[Math.max(2, Math.min(USERS, Runtime.getRuntime().availableProcessors()))];
+            for (int index = 0; index < users.length; index++) {
+                users[index] = new Thread(() -> {
+                    try {
+                        for (int request = 0; request < REQUESTS_PER_USER; request++) {
+                            manager.requestResource(ThreadLocalRandom.current().nextInt(BasicResourceManager.NO_OF_PRIORITIES));
+                            if (holders.incrementAndGet() != 1) {
+                                overlapped.set(true);
+                            }
+                            // not atomic, so updates are only all seen if the holders really were mutually exclusive
+                            counter++;
+                            holders.decrementAndGet();
+                            manager.releaseResource();
+                        }
+                    } catch (ResourceError e) {
+                        failed.set(true);
+                    }
+                });
+                users[index].start();
+            }
+            for (Thread user: users) {
+                user.join(120000);
+                assertFalse(user.isAlive(), strategy + ": a resource user is stuck waiting for the resource");
+            }
+            assertFalse(failed.get(), strategy + ": a request or release failed");
+            assertFalse(overlapped.get(), strategy + ": two resource users held the resource at the same time");
+            assertEquals(users.length * REQUESTS_PER_USER, counter, strategy + ": updates made while holding the resource were lost");
+        }
+    }
+
+    @Test
+    public void testInterruptedWaiterIsWithdrawn() throws ResourceError, InterruptedException {
+        for (WaitStrategy strategy: WaitStrategy.values()) {
+            LockResourceManager manager = new LockResourceManager(new Resource("A"), 1, strategy);
+            manager.requestResource(5);
+            AtomicBoolean refused = new AtomicBoolean();
+            AtomicBoolean granted = new AtomicBoolean();
+            Thread waiter = new Thread(() -> {
+                try {
+                    manager.requestResource(7);
+                    granted.set(true);
+                } catch (ResourceError e) {
+                    refused.set(true);
+                }
+            });
+            waiter.start();
+            while (manager.getNumberWaiting(7) == 0) {
+                Thread.sleep(1);
+            }
+            waiter.interrupt();
+            waiter.join(10000);
+            assertFalse(waiter.isAlive(), strategy + ": an interrupted waiter should stop waiting");
+            assertTrue(refused.get() && !granted.get(), strategy + ": an interrupted waiter should be refused the resource");
+            assertEquals(0, manager.getNumberWaiting(7), strategy + ": an interrupted waiter should leave its queue");
+            assertEquals(BasicResourceManager.NONE_WAITING, manager.releaseResource(),
+                         strategy + ": the resource should not be handed to a withdrawn waiter");
+            manager.requestResource(5);
+            manager.releaseResource();
+        }
+    }
+
+    @Test
+    public void testSingleProcessorNeverSpins() {
+        boolean singleProcessor = Runtime.getRuntime().availableProcessors() == 1;
+        for (WaitStrategy strategy: WaitStrategy.values()) {
+            LockResourceManager manager = new LockResourceManager(new Resource("A"), 1, strategy);
+            assertEquals(singleProcessor ? WaitStrategy.PARK : strategy, manager.getWaitStrategy());
+        }
+    }
+}